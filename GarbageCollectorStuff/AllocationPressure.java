@@ -0,0 +1,407 @@
+package GarbageCollectorStuff;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Configurable allocation workload: the generalisation of the {@link OOMSimulation} loop, which only ever
+ * retains fixed 4 MB arrays until the heap is gone.
+ * <p>
+ * Each worker thread allocates {@code byte[]}s at a paced rate. Sizes are drawn from three classes:
+ * <ul>
+ *   <li><b>small</b> – 16 B to 512 B, the bulk of a typical application's allocations (TLAB bump-pointer).</li>
+ *   <li><b>medium</b> – 1 KB to 64 KB, buffers and collections.</li>
+ *   <li><b>humongous</b> – {@code --humongousKb} (default 1–4 MB): at least half a G1 region for heaps up to 4 GB,
+ *       so G1 allocates them directly in humongous regions like the arrays in {@link OOMSimulation}.</li>
+ * </ul>
+ * {@code --retainPercent} of the allocations are kept alive for {@code --lifetimeMs}; the rest become garbage
+ * immediately. Retained objects are capped at {@code --liveSetMb} (oldest dropped first), so the steady-state
+ * live set and the promotion pressure are both under control. A live set larger than the heap reproduces the
+ * original {@code OutOfMemoryError}.
+ * <p>
+ * Every GC is recorded from {@link GarbageCollectorMXBean} notifications
+ * ({@link GarbageCollectionNotificationInfo}): collector, action, cause and duration. At the end pauses are
+ * summarised per collector and cause; {@code --csv} additionally writes one row per GC so runs under different
+ * collectors can be compared. Events are classified by their action, not by the collector bean: the
+ * {@code G1 Concurrent GC} bean reports the Remark and Cleanup stop-the-world pauses ("end of concurrent GC pause"),
+ * which count as pauses, while {@code ZGC Cycles}, {@code Shenandoah Cycles} and any other action that is not a
+ * pause ("end of GC cycle") are reported as concurrent cycles. Notification durations have millisecond
+ * resolution, so sub-millisecond ZGC pauses show as 0; run with {@code -Xlog:gc*} and {@link GcLogAnalyzer} for
+ * microseconds.
+ * <p>
+ * <b>Run command (same profile, three collectors):</b>
+ * <pre>{@code
+ * javac GarbageCollectorStuff/*.java
+ * PROFILE="--rateMb=500 --liveSetMb=256 --sizes=small=90,medium=9,humongous=1 --lifetimeMs=2000 --threads=4 --durationS=30"
+ * java -Xmx1g -XX:+UseG1GC       GarbageCollectorStuff.AllocationPressure $PROFILE --csv=g1.csv
+ * java -Xmx1g -XX:+UseZGC        GarbageCollectorStuff.AllocationPressure $PROFILE --csv=zgc.csv
+ * java -Xmx1g -XX:+UseParallelGC GarbageCollectorStuff.AllocationPressure $PROFILE --csv=parallel.csv
+ * }</pre>
+ */
+public class AllocationPressure {
+
+    enum SizeClass {
+        SMALL(16, 512), MEDIUM(1024, 64 * 1024), HUMONGOUS(1024 * 1024, 4 * 1024 * 1024);
+
+        final int defaultMin;
+        final int defaultMax;
+
+        SizeClass(int defaultMin, int defaultMax) {
+            this.defaultMin = defaultMin;
+            this.defaultMax = defaultMax;
+        }
+    }
+
+    static final List<String> OPTIONS = List.of("rateMb", "liveSetMb", "sizes", "humongousKb", "lifetimeMs",
+            "retainPercent", "threads", "durationS", "csv", "verbose");
+
+    /** Workload settings; {@link #parse} reads them from {@code --name=value} arguments ({@code rateMb=0}: unthrottled). */
+    record Profile(double rateMb, long liveSetBytes, int[] weights, int humongousMin, int humongousMax,
+                   long lifetimeMillis, int retainPercent, int threads, long durationSeconds, Path csv, boolean verbose) {
+
+        static Profile parse(String[] args) {
+            Map<String, String> options = new LinkedHashMap<>();
+            for (String arg : args) {
+                if (arg.equals("--verbose")) {
+                    options.put("verbose", "true");
+                    continue;
+                }
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("expected --name=value, got " + arg);
+                }
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+            int[] weights = {90, 9, 1};
+            if (options.containsKey("sizes")) {
+                weights = new int[3];
+                for (String part : options.get("sizes").split(",")) {
+                    String[] kv = part.split("=");
+                    weights[SizeClass.valueOf(kv[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(kv[1].trim());
+                }
+            }
+            int humongousMin = SizeClass.HUMONGOUS.defaultMin;
+            int humongousMax = SizeClass.HUMONGOUS.defaultMax;
+            if (options.containsKey("humongousKb")) {
+                String[] range = options.get("humongousKb").split("-");
+                humongousMin = Integer.parseInt(range[0]) * 1024;
+                humongousMax = Integer.parseInt(range[range.length - 1]) * 1024;
+            }
+            List<String> unknown = options.keySet().stream().filter(k -> !OPTIONS.contains(k)).toList();
+            if (!unknown.isEmpty()) {
+                throw new IllegalArgumentException("unknown options " + unknown + ", expected " + OPTIONS);
+            }
+            return new Profile(
+                    Double.parseDouble(options.getOrDefault("rateMb", "200")),
+                    Long.parseLong(options.getOrDefault("liveSetMb", "64")) << 20,
+                    weights, humongousMin, humongousMax,
+                    Long.parseLong(options.getOrDefault("lifetimeMs", "1000")),
+                    Integer.parseInt(options.getOrDefault("retainPercent", "5")),
+                    Integer.parseInt(options.getOrDefault("threads", "4")),
+                    Long.parseLong(options.getOrDefault("durationS", "30")),
+                    options.containsKey("csv") ? Path.of(options.get("csv")) : null,
+                    options.containsKey("verbose"));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("rate=%s MB/s, liveSet=%d MB, sizes small/medium/humongous=%s (humongous %d-%d KB), "
+                            + "retain=%d%% for %d ms, threads=%d, duration=%d s",
+                    rateMb > 0 ? String.valueOf(rateMb) : "unthrottled", liveSetBytes >> 20, Arrays.toString(weights),
+                    humongousMin >> 10, humongousMax >> 10, retainPercent, lifetimeMillis, threads, durationSeconds);
+        }
+    }
+
+    /** One collector notification. */
+    record Gc(long uptimeMillis, String collector, String action, String cause, long durationMillis, boolean pause) {
+    }
+
+    private final Profile profile;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    /** Shared with {@link OOMSimulation}; exported through {@link Metrics}, so {@code -Dmetrics.report=1} shows the rate. */
+    private final Counter allocatedBytes = Metrics.counter("gc.allocated.bytes");
+    private long allocatedBase;
+    private final LongAdder liveBytes = new LongAdder();
+    private final Map<String, LatencyHistogram> pausesByCause = new LinkedHashMap<>();
+    private final LatencyHistogram pauses = new LatencyHistogram("all");
+    private final Map<String, Long> concurrentCycles = new LinkedHashMap<>();
+    private final List<Gc> gcs = new ArrayList<>();
+    private volatile Throwable failure;
+    private volatile long sink;
+
+    AllocationPressure(Profile profile) {
+        this.profile = profile;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Profile profile = Profile.parse(args);
+        System.out.println("Collectors: " + ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .map(GarbageCollectorMXBean::getName).toList());
+        System.out.println("Profile: " + profile);
+        new AllocationPressure(profile).run();
+    }
+
+    void run() throws InterruptedException, IOException {
+        allocatedBase = allocatedBytes.sum();
+        List<Runnable> unsubscribe = listenForGcs();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < profile.threads; i++) {
+            Thread worker = new Thread(this::allocate, "allocator-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+
+        long start = System.nanoTime();
+        long end = start + profile.durationSeconds * 1_000_000_000L;
+        long lastAllocated = 0;
+        long lastTick = start;
+        while (System.nanoTime() < end && failure == null) {
+            Thread.sleep(1000);
+            long now = System.nanoTime();
+            long allocated = allocated();
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            LatencyHistogram.Snapshot paused = pauses.snapshot();
+            synchronized (this) {
+                System.out.printf("t=%3ds  allocated %7.1f MB/s  live %6d MB  heap %6d/%d MB  pauses %d (%.1f ms)%n",
+                        (now - start) / 1_000_000_000L, (allocated - lastAllocated) / 1048576.0 / ((now - lastTick) / 1e9),
+                        liveBytes.sum() >> 20, heap.getUsed() >> 20, heap.getMax() >> 20, paused.count(), paused.total() / 1e3);
+            }
+            lastAllocated = allocated;
+            lastTick = now;
+        }
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        unsubscribe.forEach(Runnable::run);
+
+        if (failure != null) {
+            System.err.println(failure + " after allocating " + (allocated() >> 20) + " MB, live set "
+                    + (liveBytes.sum() >> 20) + " MB");
+        }
+        report(seconds);
+        if (profile.csv != null) {
+            writeCsv(profile.csv);
+        }
+    }
+
+    private long allocated() {
+        return allocatedBytes.sum() - allocatedBase;
+    }
+
+    /** Worker loop: allocate, retain a fraction, expire old objects, pace to the per-thread rate. */
+    private void allocate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LiveSet live = new LiveSet();
+        long liveCap = profile.liveSetBytes / profile.threads;
+        double bytesPerNano = profile.rateMb * 1048576 / 1e9 / profile.threads;
+        int totalWeight = Arrays.stream(profile.weights).sum();
+        long start = System.nanoTime();
+        long allocated = 0;
+        long sink = 0;
+        try {
+            while (running.get()) {
+                int size = nextSize(random, totalWeight);
+                byte[] object = new byte[size];
+                object[size - 1] = (byte) size;
+                sink += object[random.nextInt(size)];
+                allocated += size;
+                allocatedBytes.add(size);
+
+                long now = System.nanoTime();
+                liveBytes.add(-live.expire(now));
+                if (random.nextInt(100) < profile.retainPercent) {
+                    live.add(object, now + profile.lifetimeMillis * 1_000_000);
+                    liveBytes.add(size);
+                    while (live.bytes > liveCap) {
+                        liveBytes.add(-live.removeOldest());
+                    }
+                }
+
+                if (bytesPerNano > 0) {
+                    long due = start + (long) (allocated / bytesPerNano);
+                    if (due - now > 1_000_000) {
+                        LockSupport.parkNanos(due - now);
+                    }
+                }
+            }
+        } catch (OutOfMemoryError e) {
+            failure = e;
+            running.set(false);
+        }
+        liveBytes.add(-live.bytes);
+        this.sink += sink;
+    }
+
+    private int nextSize(ThreadLocalRandom random, int totalWeight) {
+        int pick = random.nextInt(totalWeight);
+        SizeClass sizeClass = SizeClass.SMALL;
+        for (SizeClass c : SizeClass.values()) {
+            if (pick < profile.weights[c.ordinal()]) {
+                sizeClass = c;
+                break;
+            }
+            pick -= profile.weights[c.ordinal()];
+        }
+        return switch (sizeClass) {
+            case SMALL, MEDIUM -> random.nextInt(sizeClass.defaultMin, sizeClass.defaultMax + 1);
+            case HUMONGOUS -> random.nextInt(profile.humongousMin, profile.humongousMax + 1);
+        };
+    }
+
+    private List<Runnable> listenForGcs() {
+        List<Runnable> unsubscribe = new ArrayList<>();
+        NotificationListener listener = this::onNotification;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                unsubscribe.add(() -> {
+                    try {
+                        emitter.removeNotificationListener(listener);
+                    } catch (Exception ignored) {
+                        // already removed
+                    }
+                });
+            }
+        }
+        return unsubscribe;
+    }
+
+    /**
+     * Pause actions say so ("end of GC pause", "end of concurrent GC pause"); Serial and Parallel report
+     * "end of minor/major GC", which are pauses too. Only the "Cycles" beans and cycle/concurrent actions without
+     * "pause" are concurrent work.
+     */
+    static boolean isPause(String collector, String action) {
+        if (action.contains("pause")) {
+            return true;
+        }
+        return !(collector.contains("Cycles") || action.contains("cycle") || action.contains("concurrent"));
+    }
+
+    private void onNotification(Notification notification, Object handback) {
+        if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        String collector = info.getGcName();
+        boolean pause = isPause(collector, info.getGcAction());
+        Gc gc = new Gc(info.getGcInfo().getStartTime(), collector, info.getGcAction(), info.getGcCause(),
+                info.getGcInfo().getDuration(), pause);
+        synchronized (this) {
+            gcs.add(gc);
+            String key = collector + " / " + gc.action + " / " + gc.cause;
+            if (pause) {
+                pauses.record(gc.durationMillis * 1000);
+                pausesByCause.computeIfAbsent(key, LatencyHistogram::new).record(gc.durationMillis * 1000);
+            } else {
+                concurrentCycles.merge(key, gc.durationMillis, Long::sum);
+            }
+        }
+        if (profile.verbose) {
+            System.out.printf("  %8d ms  %-22s %-20s %-30s %d ms%n", gc.uptimeMillis, collector, gc.action, gc.cause, gc.durationMillis);
+        }
+    }
+
+    private synchronized void report(double seconds) {
+        System.out.printf("%n==== %.1f s, %d MB allocated (%.1f MB/s) ====%n", seconds, allocated() >> 20,
+                allocated() / 1048576.0 / seconds);
+        LatencyHistogram.Snapshot all = pauses.snapshot();
+        System.out.printf("Pauses: %d, total %.1f ms (%.2f%% of wall time)%n", all.count(), all.total() / 1e3,
+                all.total() / 1e4 / seconds);
+        System.out.printf("  %-70s %7s %9s %9s %9s %9s%n", "collector / action / cause", "count", "p50 ms", "p99 ms", "max ms", "total ms");
+        pausesByCause.forEach((key, histogram) -> {
+            LatencyHistogram.Snapshot h = histogram.snapshot();
+            System.out.printf("  %-70s %7d %9.1f %9.1f %9.1f %9.1f%n", key, h.count(),
+                    h.percentile(0.5) / 1e3, h.percentile(0.99) / 1e3, h.max() / 1e3, h.total() / 1e3);
+        });
+        if (!concurrentCycles.isEmpty()) {
+            System.out.println("Concurrent cycles (not pauses):");
+            concurrentCycles.forEach((key, millis) -> System.out.printf("  %-70s %9d ms%n", key, millis));
+        }
+    }
+
+    private synchronized void writeCsv(Path csv) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv))) {
+            out.println("uptime_ms,collector,action,cause,duration_ms,pause");
+            for (Gc gc : gcs) {
+                out.printf("%d,%s,%s,%s,%d,%b%n", gc.uptimeMillis, gc.collector, gc.action, gc.cause, gc.durationMillis, gc.pause);
+            }
+        }
+        System.out.println("Wrote " + gcs.size() + " GCs to " + csv);
+    }
+
+    /** FIFO of retained objects with their expiry times; a growable ring so steady state does not allocate. */
+    static final class LiveSet {
+
+        private Object[] objects = new Object[1024];
+        private long[] deadlines = new long[1024];
+        private int head;
+        private int size;
+        long bytes;
+
+        void add(byte[] object, long deadline) {
+            if (size == objects.length) {
+                grow();
+            }
+            int tail = (head + size) % objects.length;
+            objects[tail] = object;
+            deadlines[tail] = deadline;
+            size++;
+            bytes += object.length;
+        }
+
+        /** Drops every object whose deadline has passed; returns the bytes released. */
+        long expire(long now) {
+            long released = 0;
+            while (size > 0 && deadlines[head] <= now) {
+                released += removeOldest();
+            }
+            return released;
+        }
+
+        long removeOldest() {
+            byte[] oldest = (byte[]) objects[head];
+            objects[head] = null;
+            head = (head + 1) % objects.length;
+            size--;
+            bytes -= oldest.length;
+            return oldest.length;
+        }
+
+        private void grow() {
+            Object[] o = new Object[objects.length * 2];
+            long[] d = new long[objects.length * 2];
+            for (int i = 0; i < size; i++) {
+                o[i] = objects[(head + i) % objects.length];
+                d[i] = deadlines[(head + i) % deadlines.length];
+            }
+            objects = o;
+            deadlines = d;
+            head = 0;
+        }
+    }
+}
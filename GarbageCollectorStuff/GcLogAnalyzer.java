@@ -0,0 +1,342 @@
+package GarbageCollectorStuff;
+
+import metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads {@code -Xlog:gc*} output line by line and turns what the {@link OOMSimulation} javadoc explains by hand
+ * into numbers:
+ * <ul>
+ *   <li><b>Pauses</b> – count, total, share of wall time and p50/p90/p99/p99.9/max, overall and per cause
+ *       (the text after {@code GC(n)} on the summary line, e.g. {@code Pause Young (Normal) (G1 Evacuation Pause)}).</li>
+ *   <li><b>Allocation rate</b> – heap before a GC minus heap after the previous one, summed and divided by the
+ *       uptime covered.</li>
+ *   <li><b>Promotion rate</b> – growth of the old generation across young pauses: G1 {@code Old regions: a->b}
+ *       times the region size, or the {@code ParOldGen}/{@code Tenured} line of Parallel and Serial.</li>
+ *   <li><b>Region trends</b> – for Eden, Survivor, Old and Humongous: first, last, min, max after GC and a
+ *       least-squares slope in regions per minute. A steadily positive Old or Humongous slope is the signature of
+ *       a growing live set, as in {@link OOMSimulation}.</li>
+ *   <li><b>Full GCs and compactions</b> – {@code Pause Full}, {@code Attempting full compaction},
+ *       {@code To-space exhausted} and evacuation failures are counted; the last few lines are kept verbatim.</li>
+ * </ul>
+ * Nothing grows with the length of the log: pauses go into a fixed log-linear {@link LatencyHistogram}, trends are running sums,
+ * and the file is read through one reused 64 KB buffer, so a multi-GB log from a long-running node is analysed
+ * in constant memory.
+ * <p>
+ * With {@code --follow} the file is tailed like {@code tail -F}: after reaching the end the analyzer polls for new
+ * data, prints a report every {@code --interval} seconds, and reopens the file from the start when it is truncated
+ * or replaced by log rotation ({@code -Xlog:gc*:file=gc.log::filecount=5}).
+ * <p>
+ * <b>Run command:</b>
+ * <pre>{@code
+ * javac GarbageCollectorStuff/*.java
+ * java -Xms20m -Xmx20m -Xlog:gc*:file=gc.log GarbageCollectorStuff.OOMSimulation
+ * java GarbageCollectorStuff.GcLogAnalyzer gc.log
+ * java GarbageCollectorStuff.GcLogAnalyzer /var/log/app/gc.log --follow --interval=30
+ * }</pre>
+ */
+public class GcLogAnalyzer {
+
+    /** How many full-GC / compaction lines are kept for the report. */
+    static final int NOTABLE_LINES = 10;
+
+    /** Longer lines are truncated; no gc line comes close. */
+    static final int MAX_LINE = 64 * 1024;
+
+    private static final Pattern UPTIME = Pattern.compile("\\[(\\d+(?:\\.\\d+)?)(s|ms)]");
+    private static final Pattern PAUSE = Pattern.compile(
+            "GC\\((\\d+)\\) (Pause .*?)(?: (\\d+)([KMGB])->(\\d+)([KMGB])\\((\\d+)([KMGB])\\))? (\\d+(?:\\.\\d+)?)ms\\s*$");
+    private static final Pattern REGIONS = Pattern.compile(
+            "GC\\((\\d+)\\) (Eden|Survivor|Old|Humongous) regions: (\\d+)\\s*->\\s*(\\d+)");
+    private static final Pattern OLD_GEN = Pattern.compile(
+            "GC\\((\\d+)\\) (?:ParOldGen|PSOldGen|Tenured): (\\d+)K(?:\\(\\d+K\\))?->(\\d+)K");
+    private static final Pattern FULL_GC = Pattern.compile("GC\\((\\d+)\\) Pause Full");
+    private static final Pattern REGION_SIZE = Pattern.compile("Heap Region Size: (\\d+)([KMG])");
+
+    private static final String[] REGION_TYPES = {"Eden", "Survivor", "Old", "Humongous"};
+
+    private final LatencyHistogram pauses = new LatencyHistogram("all");
+    private final Map<String, LatencyHistogram> pausesByCause = new LinkedHashMap<>();
+    private final Trend[] regions = {new Trend(), new Trend(), new Trend(), new Trend()};
+    private final String[] notable = new String[NOTABLE_LINES];
+    private int notableCount;
+    private long fullGcs;
+    private long compactionAttempts;
+    private long evacuationFailures;
+
+    private long regionBytes;
+    private double firstUptime = Double.NaN;
+    private double lastUptime;
+    private long lines;
+
+    private long allocatedBytes;
+    private long lastHeapAfter = -1;
+    private long promotedBytes;
+    private long promotionGcs;
+    private long fullGcId = -1;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("usage: GcLogAnalyzer <gc.log> [--follow] [--interval=seconds]");
+            System.exit(2);
+        }
+        Path log = Path.of(args[0]);
+        boolean follow = false;
+        long intervalMillis = 10_000;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--follow")) {
+                follow = true;
+            } else if (args[i].startsWith("--interval=")) {
+                intervalMillis = (long) (Double.parseDouble(args[i].substring("--interval=".length())) * 1000);
+            } else {
+                throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        GcLogAnalyzer analyzer = new GcLogAnalyzer();
+        if (follow) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> analyzer.report(System.out)));
+        }
+        analyzer.read(log, follow, intervalMillis);
+        if (!follow) {
+            analyzer.report(System.out);
+        }
+    }
+
+    /**
+     * Feeds every line of {@code log} to {@link #accept}. Without {@code follow} returns at end of file; with it,
+     * polls for growth forever and prints a report every {@code intervalMillis}.
+     */
+    void read(Path log, boolean follow, long intervalMillis) throws IOException, InterruptedException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        byte[] line = new byte[1024];
+        int lineLength = 0;
+        long nextReport = System.currentTimeMillis() + intervalMillis;
+
+        FileChannel channel = FileChannel.open(log, StandardOpenOption.READ);
+        Object fileKey = fileKey(log);
+        try {
+            while (true) {
+                buffer.clear();
+                int n = channel.read(buffer);
+                if (n > 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        byte b = buffer.get();
+                        if (b == '\n') {
+                            accept(new String(line, 0, lineLength, StandardCharsets.ISO_8859_1));
+                            lineLength = 0;
+                        } else if (b != '\r' && lineLength < MAX_LINE) {
+                            if (lineLength == line.length) {
+                                line = Arrays.copyOf(line, line.length * 2);
+                            }
+                            line[lineLength++] = b;
+                        }
+                    }
+                    continue;
+                }
+                if (!follow) {
+                    if (lineLength > 0) {
+                        accept(new String(line, 0, lineLength, StandardCharsets.ISO_8859_1));
+                    }
+                    return;
+                }
+                // End of the data written so far: a partial last line stays in 'line' until its newline arrives.
+                if (System.currentTimeMillis() >= nextReport) {
+                    report(System.out);
+                    nextReport = System.currentTimeMillis() + intervalMillis;
+                }
+                Thread.sleep(250);
+                Object currentKey = fileKey(log);
+                if (currentKey != null && (!Objects.equals(currentKey, fileKey) || Files.size(log) < channel.position())) {
+                    // Rotated (new inode) or truncated: start over on the file now at that path.
+                    channel.close();
+                    channel = FileChannel.open(log, StandardOpenOption.READ);
+                    fileKey = currentKey;
+                    lineLength = 0;
+                }
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static Object fileKey(Path log) {
+        try {
+            return Files.readAttributes(log, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null; // between rotation's rename and create
+        }
+    }
+
+    /** Parses one log line; lines that are not understood are ignored. */
+    synchronized void accept(String line) {
+        lines++;
+        Matcher m = UPTIME.matcher(line);
+        if (m.find()) {
+            double uptime = Double.parseDouble(m.group(1)) / (m.group(2).equals("ms") ? 1000 : 1);
+            if (Double.isNaN(firstUptime)) {
+                firstUptime = uptime;
+            }
+            lastUptime = uptime;
+        }
+
+        // G1 appends "(Evacuation Failure)" to the pause summary; older JDKs log "To-space exhausted" separately.
+        if (line.contains("To-space exhausted") || line.contains("Evacuation Failure") && PAUSE.matcher(line).find()) {
+            evacuationFailures++;
+            remember(line);
+        }
+        if ((m = FULL_GC.matcher(line)).find()) {
+            fullGcId = Long.parseLong(m.group(1));
+        }
+        if ((m = PAUSE.matcher(line)).find()) {
+            onPause(m, line);
+        } else if ((m = REGIONS.matcher(line)).find()) {
+            onRegions(m);
+        } else if ((m = OLD_GEN.matcher(line)).find()) {
+            long before = Long.parseLong(m.group(2));
+            long after = Long.parseLong(m.group(3));
+            if (Long.parseLong(m.group(1)) != fullGcId && after > before) {
+                promotedBytes += (after - before) * 1024;
+                promotionGcs++;
+            }
+        } else if (line.contains("Attempting full compaction")) {
+            compactionAttempts++;
+            remember(line);
+        } else if ((m = REGION_SIZE.matcher(line)).find()) {
+            regionBytes = bytes(Long.parseLong(m.group(1)), m.group(2));
+        }
+    }
+
+    private void onPause(Matcher m, String line) {
+        String cause = m.group(2);
+        long micros = Math.round(Double.parseDouble(m.group(9)) * 1000);
+        pauses.record(micros);
+        pausesByCause.computeIfAbsent(cause, LatencyHistogram::new).record(micros);
+        if (cause.startsWith("Pause Full")) {
+            fullGcs++;
+            remember(line);
+        }
+        if (m.group(3) != null) {
+            long before = bytes(Long.parseLong(m.group(3)), m.group(4));
+            long after = bytes(Long.parseLong(m.group(5)), m.group(6));
+            if (lastHeapAfter >= 0) {
+                allocatedBytes += Math.max(0, before - lastHeapAfter);
+            }
+            lastHeapAfter = after;
+        }
+    }
+
+    private void onRegions(Matcher m) {
+        long gc = Long.parseLong(m.group(1));
+        String type = m.group(2);
+        long before = Long.parseLong(m.group(3));
+        long after = Long.parseLong(m.group(4));
+        regions[Arrays.asList(REGION_TYPES).indexOf(type)].add(lastUptime, after);
+        // Old regions gained in a young or mixed pause are promotions; a full GC moves everything and is not counted.
+        if (type.equals("Old") && gc != fullGcId && after > before && regionBytes > 0) {
+            promotedBytes += (after - before) * regionBytes;
+            promotionGcs++;
+        }
+    }
+
+    private void remember(String line) {
+        notable[notableCount++ % NOTABLE_LINES] = line.trim();
+    }
+
+    private static long bytes(long value, String unit) {
+        return switch (unit) {
+            case "K" -> value << 10;
+            case "M" -> value << 20;
+            case "G" -> value << 30;
+            default -> value;
+        };
+    }
+
+    synchronized void report(PrintStream out) {
+        double seconds = Double.isNaN(firstUptime) ? 0 : lastUptime - firstUptime;
+        out.printf("%n==== GC log: %d lines, %.1f s of uptime ====%n", lines, seconds);
+
+        LatencyHistogram.Snapshot all = pauses.snapshot();
+        out.printf("Pauses: %d, total %.1f ms (%.2f%% of wall time)%n", all.count(), all.total() / 1e3,
+                seconds > 0 ? all.total() / 1e4 / seconds : 0);
+        out.printf("  %-60s %7s %9s %9s %9s %9s %9s%n", "cause", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        printPauses(out, "all", all);
+        pausesByCause.forEach((cause, h) -> printPauses(out, cause, h.snapshot()));
+
+        out.printf("Allocation rate: %.1f MB/s (%d MB)%n", seconds > 0 ? allocatedBytes / 1048576.0 / seconds : 0,
+                allocatedBytes >> 20);
+        out.printf("Promotion rate:  %.1f MB/s (%d MB over %d GCs)%n", seconds > 0 ? promotedBytes / 1048576.0 / seconds : 0,
+                promotedBytes >> 20, promotionGcs);
+
+        out.printf("Regions after GC%s:%n", regionBytes > 0 ? " (" + (regionBytes >> 10) + " KB each)" : "");
+        out.printf("  %-10s %7s %7s %7s %7s %12s%n", "type", "first", "last", "min", "max", "per minute");
+        for (int i = 0; i < REGION_TYPES.length; i++) {
+            Trend t = regions[i];
+            if (t.n > 0) {
+                out.printf("  %-10s %7d %7d %7d %7d %+12.2f%n", REGION_TYPES[i], t.first, t.last, t.min, t.max, t.slope() * 60);
+            }
+        }
+
+        out.printf("Full GCs: %d, full compaction attempts: %d, evacuation failures: %d%n",
+                fullGcs, compactionAttempts, evacuationFailures);
+        int kept = Math.min(notableCount, NOTABLE_LINES);
+        for (int i = notableCount - kept; i < notableCount; i++) {
+            out.println("  " + notable[i % NOTABLE_LINES]);
+        }
+    }
+
+    private static void printPauses(PrintStream out, String cause, LatencyHistogram.Snapshot h) {
+        out.printf("  %-60s %7d %9.3f %9.3f %9.3f %9.3f %9.3f%n", cause, h.count(),
+                h.percentile(0.5) / 1e3, h.percentile(0.9) / 1e3, h.percentile(0.99) / 1e3,
+                h.percentile(0.999) / 1e3, h.max() / 1e3);
+    }
+
+    /** First/last/min/max plus running sums for a least-squares slope of value over uptime. */
+    static final class Trend {
+
+        long n;
+        long first;
+        long last;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        private double sumT;
+        private double sumY;
+        private double sumTY;
+        private double sumTT;
+
+        void add(double t, long y) {
+            if (n++ == 0) {
+                first = y;
+            }
+            last = y;
+            min = Math.min(min, y);
+            max = Math.max(max, y);
+            sumT += t;
+            sumY += y;
+            sumTY += t * y;
+            sumTT += t * t;
+        }
+
+        /** Change per second; 0 until two distinct times have been seen. */
+        double slope() {
+            double denominator = n * sumTT - sumT * sumT;
+            return n < 2 || denominator <= 1e-12 ? 0 : (n * sumTY - sumT * sumY) / denominator;
+        }
+    }
+}
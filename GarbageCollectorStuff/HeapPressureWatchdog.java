@@ -0,0 +1,201 @@
+package GarbageCollectorStuff;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the old generation and reacts before {@link OutOfMemoryError}, instead of catching it as
+ * {@link OOMSimulation} does.
+ * <p>
+ * The old-gen {@link MemoryPoolMXBean} ({@code G1 Old Gen}, {@code PS Old Gen}, {@code Tenured Gen}...) gets two
+ * thresholds, as fractions of its maximum:
+ * <ul>
+ *   <li><b>warning</b> – set as the <i>usage</i> threshold. Allocators calling {@link #admit()} are slowed down
+ *       (backpressure), giving the collector time to catch up.</li>
+ *   <li><b>critical</b> – set as the <i>collection usage</i> threshold, i.e. checked against what is still live
+ *       right after a GC: memory that will not come back by itself. The {@link Spiller} is asked to move enough
+ *       cold data out of the heap to get back under the warning level.</li>
+ * </ul>
+ * JMX notifications ({@link MemoryNotificationInfo}) arrive asynchronously on a JDK thread, possibly after the
+ * allocator has already taken the next block. {@link #admit()} therefore also reads the pool's current usage
+ * and, above the critical level, spills synchronously in the calling thread before letting it allocate. Spilled
+ * objects stay counted in the pool's usage until the next collection, so the bytes released since the last GC
+ * are subtracted when deciding the level; otherwise every call would spill again.
+ * <pre>{@code
+ * try (SpillableIntStore store = new SpillableIntStore(spillFile);
+ *      HeapPressureWatchdog watchdog = new HeapPressureWatchdog(0.5, 0.7, store::spill)) {
+ *     while (...) {
+ *         watchdog.admit();
+ *         store.put(new int[size]);
+ *     }
+ * }
+ * }</pre>
+ */
+public class HeapPressureWatchdog implements AutoCloseable {
+
+    public enum Level {NORMAL, WARNING, CRITICAL}
+
+    /** Why a spill runs. After a collection-threshold notification the usage is known to be high, so it always spills. */
+    private enum Trigger {
+        ALLOCATION("allocation", false),
+        COLLECTION_THRESHOLD("collection threshold notification", true);
+
+        final String label;
+        final boolean unconditional;
+
+        Trigger(String label, boolean unconditional) {
+            this.label = label;
+            this.unconditional = unconditional;
+        }
+    }
+
+    /** Moves cold data out of the heap; returns the number of heap bytes released. */
+    @FunctionalInterface
+    public interface Spiller {
+        long spill(long bytes);
+    }
+
+    /** How long {@link #admit()} parks a caller while usage is above the warning level. */
+    static final long WARNING_PAUSE_MILLIS = 5;
+
+    private final MemoryPoolMXBean pool;
+    private final long max;
+    private final long warningBytes;
+    private final long criticalBytes;
+    private final Spiller spiller;
+    private final NotificationListener listener = this::onNotification;
+
+    private long releasedSinceGc;
+    private long gcCountAtRelease = -1;
+    private long throttled;
+    private long spills;
+    private long spilledBytes;
+    private long notifications;
+
+    public HeapPressureWatchdog(double warning, double critical, Spiller spiller) {
+        if (!(0 < warning && warning < critical && critical < 1)) {
+            throw new IllegalArgumentException("need 0 < warning < critical < 1");
+        }
+        this.pool = oldGenPool();
+        this.max = pool.getUsage().getMax() > 0 ? pool.getUsage().getMax() : Runtime.getRuntime().maxMemory();
+        this.warningBytes = (long) (max * warning);
+        this.criticalBytes = (long) (max * critical);
+        this.spiller = spiller;
+        pool.setUsageThreshold(warningBytes);
+        pool.setCollectionUsageThreshold(criticalBytes);
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(listener, null, null);
+    }
+
+    /** The heap pool that supports both thresholds; collectors name it differently, so prefer "Old"/"Tenured". */
+    static MemoryPoolMXBean oldGenPool() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP)
+                .filter(p -> p.isUsageThresholdSupported() && p.isCollectionUsageThresholdSupported())
+                .max(Comparator.comparing((MemoryPoolMXBean p) -> p.getName().contains("Old") || p.getName().contains("Tenured"))
+                        .thenComparing(p -> p.getUsage().getMax()))
+                .orElseThrow(() -> new IllegalStateException("no heap pool supports usage thresholds with this collector"));
+    }
+
+    /**
+     * Call before allocating. Returns at once when usage is normal, parks briefly above the warning level and,
+     * above the critical level, spills before returning.
+     */
+    public void admit() {
+        Level level = level();
+        if (level == Level.CRITICAL) {
+            spill(Trigger.ALLOCATION);
+        } else if (level == Level.WARNING) {
+            synchronized (this) {
+                throttled++;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(WARNING_PAUSE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Current level from the pool's usage minus what has been spilled but not yet collected. */
+    public synchronized Level level() {
+        long used = pool.getUsage().getUsed() - pendingRelease();
+        return used >= criticalBytes ? Level.CRITICAL : used >= warningBytes ? Level.WARNING : Level.NORMAL;
+    }
+
+    private void onNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (type.equals(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED)) {
+            synchronized (this) {
+                notifications++;
+            }
+            spill(Trigger.COLLECTION_THRESHOLD);
+        } else if (type.equals(MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED)) {
+            synchronized (this) {
+                notifications++;
+            }
+        }
+    }
+
+    private synchronized void spill(Trigger trigger) {
+        long used = pool.getUsage().getUsed() - pendingRelease();
+        if (used < criticalBytes && !trigger.unconditional) {
+            return; // another thread spilled while this one waited for the lock
+        }
+        long target = Math.max(0, used - warningBytes);
+        long released = spiller.spill(target);
+        if (released == 0) {
+            return;
+        }
+        spills++;
+        spilledBytes += released;
+        long gcCount = gcCount();
+        if (gcCountAtRelease != gcCount) {
+            releasedSinceGc = 0;
+            gcCountAtRelease = gcCount;
+        }
+        releasedSinceGc += released;
+        System.out.printf("[watchdog] %s: %s at %d of %d MB, spilled %d MB%n", trigger.label, pool.getName(),
+                used >> 20, max >> 20, released >> 20);
+    }
+
+    private long pendingRelease() {
+        return gcCountAtRelease == gcCount() ? releasedSinceGc : 0;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    public String poolName() {
+        return pool.getName();
+    }
+
+    public synchronized String stats() {
+        return String.format("pool %s, warning %d MB, critical %d MB: %d threshold notifications, "
+                        + "%d throttled allocations, %d spills (%d MB)", pool.getName(), warningBytes >> 20,
+                criticalBytes >> 20, notifications, throttled, spills, spilledBytes >> 20);
+    }
+
+    @Override
+    public void close() {
+        try {
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(listener);
+        } catch (Exception ignored) {
+            // already removed
+        }
+        pool.setUsageThreshold(0);
+        pool.setCollectionUsageThreshold(0);
+    }
+}
@@ -0,0 +1,117 @@
+package GarbageCollectorStuff;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link OOMSimulation} with the live set either on the heap ({@code ArrayList<int[]>}, as in the original) or
+ * off-heap in an {@link OffHeapIntStore}, measured the same way in both modes.
+ * <ol>
+ *   <li><b>Capacity</b> – blocks of {@code --arrayInts} ints (default 1,000,000 = ~4 MB, the original array)
+ *       are allocated and written until the heap throws {@link OutOfMemoryError} or the off-heap store
+ *       ({@code --offHeapMb}) is full. The amount that fitted is the maximum usable data size.</li>
+ *   <li><b>Churn</b> – the live set is cut back to {@code --keepPercent} of that and kept reachable while
+ *       {@link AllocationPressure} runs its workload (remaining arguments, same syntax) and records every pause.
+ *       On-heap, every young pause has to deal with an old generation full of the live set (humongous regions,
+ *       remembered sets, marking); off-heap, the heap only holds the churn.</li>
+ * </ol>
+ * <p>
+ * <b>Run command (JDK 21, where FFM is a preview API – see {@link OffHeapIntStore}):</b>
+ * <pre>{@code
+ * mvn -B compile
+ * java -Xmx512m -XX:+UseG1GC -cp target/classes --enable-preview GarbageCollectorStuff.LiveSetSimulation --mode=heap
+ * java -Xmx512m -XX:MaxDirectMemorySize=2g -XX:+UseG1GC -cp target/classes --enable-preview GarbageCollectorStuff.LiveSetSimulation --mode=offheap --offHeapMb=2048
+ * # churn settings are passed through, e.g. --rateMb=500 --durationS=30 --threads=2
+ * }</pre>
+ */
+public class LiveSetSimulation {
+
+    public static void main(String[] args) throws Exception {
+        String mode = "heap";
+        int arrayInts = 1_000_000;
+        long offHeapBytes = 1024L << 20;
+        int keepPercent = 80;
+        // Churn defaults small enough to fit next to the retained live set; later arguments override them.
+        List<String> churnArgs = new ArrayList<>(List.of("--liveSetMb=16", "--sizes=small=90,medium=10,humongous=0",
+                "--durationS=10", "--threads=2"));
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--mode=")) {
+                mode = value;
+            } else if (arg.startsWith("--arrayInts=")) {
+                arrayInts = Integer.parseInt(value);
+            } else if (arg.startsWith("--offHeapMb=")) {
+                offHeapBytes = Long.parseLong(value) << 20;
+            } else if (arg.startsWith("--keepPercent=")) {
+                keepPercent = Integer.parseInt(value);
+            } else {
+                churnArgs.add(arg);
+            }
+        }
+        AllocationPressure.Profile churn = AllocationPressure.Profile.parse(churnArgs.toArray(new String[0]));
+        long arrayBytes = (long) arrayInts * Integer.BYTES;
+
+        switch (mode) {
+            case "heap" -> {
+                List<int[]> live = new ArrayList<>();
+                long start = System.nanoTime();
+                try {
+                    while (true) {
+                        int[] memoryFill = new int[arrayInts];
+                        Arrays.fill(memoryFill, live.size());
+                        live.add(memoryFill);
+                    }
+                } catch (OutOfMemoryError e) {
+                    // Nothing is printed until part of the live set is released: the heap is full here.
+                }
+                int filled = live.size();
+                int keep = filled * keepPercent / 100;
+                live.subList(keep, filled).clear();
+                System.gc();
+                reportCapacity("heap", filled, arrayBytes, start);
+                runChurn(keep, arrayBytes, churn);
+                Reference.reachabilityFence(live);
+            }
+            case "offheap" -> {
+                try (OffHeapIntStore store = new OffHeapIntStore(offHeapBytes)) {
+                    List<OffHeapIntStore.Block> live = new ArrayList<>();
+                    long start = System.nanoTime();
+                    try {
+                        while (store.remainingBytes() >= arrayBytes) {
+                            OffHeapIntStore.Block block = store.allocate(arrayInts);
+                            block.fill(live.size());
+                            live.add(block);
+                        }
+                    } catch (OutOfMemoryError e) {
+                        System.out.println("Stopped by -XX:MaxDirectMemorySize before the store was full: " + e.getMessage());
+                    }
+                    reportCapacity("off-heap (capacity " + (offHeapBytes >> 20) + " MB)", live.size(), arrayBytes, start);
+                    int keep = live.size() * keepPercent / 100;
+                    while (live.size() > keep) {
+                        live.remove(live.size() - 1).free();
+                    }
+                    runChurn(keep, arrayBytes, churn);
+                    long check = 0;
+                    for (OffHeapIntStore.Block block : live) {
+                        check += block.get(block.length() - 1);
+                    }
+                    System.out.println("Live set intact: checksum " + check);
+                }
+            }
+            default -> throw new IllegalArgumentException("--mode must be heap or offheap, got " + mode);
+        }
+    }
+
+    private static void reportCapacity(String where, int arrays, long arrayBytes, long start) {
+        System.out.printf("Capacity %s: %d arrays of %d ints = %d MB in %d ms%n", where, arrays, arrayBytes / Integer.BYTES,
+                arrays * arrayBytes >> 20, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void runChurn(int arrays, long arrayBytes, AllocationPressure.Profile churn) throws Exception {
+        System.out.printf("Keeping %d arrays (%d MB) live; heap used %d MB; churn: %s%n", arrays, arrays * arrayBytes >> 20,
+                (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20, churn);
+        new AllocationPressure(churn).run();
+    }
+}
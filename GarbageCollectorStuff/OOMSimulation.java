@@ -1,6 +1,12 @@
 package GarbageCollectorStuff;
 
+import metrics.Counter;
+import metrics.Metrics;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * This class (or method) demonstrates and analyzes detailed Java Garbage Collector (GC) logs
@@ -18,6 +24,17 @@ import java.util.ArrayList;
  * <pre>{@code
  * java -Xms20m -Xmx20m -XX:+PrintGCDetails GarbageCollectorStuff/OOMSimulation
  * }</pre>
+ * Without arguments the original fill-until-OOM loop runs. With {@code --name=value} arguments the run is handed
+ * to {@link AllocationPressure}, which paces allocations, bounds the live set and records every pause:
+ * <pre>{@code
+ * java -Xmx512m -XX:+UseG1GC GarbageCollectorStuff.OOMSimulation --rateMb=300 --liveSetMb=128 --durationS=20
+ * }</pre>
+ * {@code --watchdog[=arrays]} runs the same loop as the original, but the arrays go into a {@link SpillableIntStore}
+ * guarded by a {@link HeapPressureWatchdog}: cold arrays are spilled to a file before the heap runs
+ * out, so the 20 MB heap that held 4 arrays now carries 100 (default) and reads every one of them back:
+ * <pre>{@code
+ * java -Xms20m -Xmx20m -Xlog:gc GarbageCollectorStuff.OOMSimulation --watchdog=100
+ * }</pre>
  * <p>
  * JVM flags explained:
  * <ul>
@@ -294,28 +311,71 @@ import java.util.ArrayList;
  *
  * Understanding the detailed transitions and phases helps diagnose GC behavior,
  * optimize JVM tuning parameters, and troubleshoot performance issues.
+ * {@link GcLogAnalyzer} extracts the same figures (pauses, region transitions, full GCs) from a whole
+ * {@code -Xlog:gc*} file, or from a live one with {@code --follow}.
  *
  */
 
 public class OOMSimulation {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].startsWith("--watchdog")) {
+            int arrays = args[0].contains("=") ? Integer.parseInt(args[0].substring(args[0].indexOf('=') + 1)) : 100;
+            fillWithWatchdog(arrays);
+            return;
+        }
+        if (args.length > 0) {
+            AllocationPressure.main(args);
+            return;
+        }
         int arraySize = 1_000_000; // Each array ~4MB
 //        int arraySize = 2_000_000; // Each array ~4MB [approx]
 //        int arraySize = 4_000_000; // Each array ~16MB [approx]
         int count = 0;
         ArrayList<int[]> arrayList = new ArrayList<>();
+        Counter allocated = Metrics.counter("gc.allocated.bytes");
 
         try {
             while (true) {
                 int[] memoryFill = new int[arraySize];
                 arrayList.add(memoryFill);
+                allocated.add((long) arraySize * Integer.BYTES);
                 System.out.println("Allocated object #" + (++count));
             }
         } catch (OutOfMemoryError e) {
             System.err.println("OutOfMemoryError after allocating " + count + " objects & arrayList "
                     +arrayList.size() + " arraySize : "+arraySize);
             e.printStackTrace();
+            System.out.print(Metrics.snapshot());
         }
     }
-}
 
+    /** The loop above with backpressure and spilling instead of OutOfMemoryError. */
+    static void fillWithWatchdog(int arrays) throws Exception {
+        int arraySize = 1_000_000; // Each array ~4MB
+        Counter allocated = Metrics.counter("gc.allocated.bytes");
+        Path spillFile = Files.createTempFile("oom-simulation", ".spill");
+        try (SpillableIntStore store = new SpillableIntStore(spillFile);
+             HeapPressureWatchdog watchdog = new HeapPressureWatchdog(0.5, 0.7, store::spill)) {
+            for (int count = 1; count <= arrays; count++) {
+                watchdog.admit();
+                int[] memoryFill = new int[arraySize];
+                allocated.add((long) arraySize * Integer.BYTES);
+                Arrays.fill(memoryFill, count);
+                store.put(memoryFill);
+                System.out.println("Allocated object #" + count + " (" + store.residentCount() + " in heap, "
+                        + store.spilledCount() + " spilled)");
+            }
+            long checksum = 0;
+            for (int id = 0; id < arrays; id++) {
+                watchdog.admit();
+                int[] data = store.get(id);
+                checksum += data[data.length - 1];
+            }
+            System.out.println("Read back " + arrays + " arrays, checksum " + checksum
+                    + (checksum == (long) arrays * (arrays + 1) / 2 ? " (ok)" : " (MISMATCH)"));
+            System.out.println(store.stats());
+            System.out.println(watchdog.stats());
+            System.out.print(Metrics.snapshot());
+        }
+    }
+}
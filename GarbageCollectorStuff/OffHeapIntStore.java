@@ -0,0 +1,146 @@
+package GarbageCollectorStuff;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Bounded store of {@code int} blocks that live outside the Java heap, built on the FFM API
+ * ({@link Arena} / {@link MemorySegment}).
+ * <p>
+ * Each {@link Block} owns a confined {@link Arena}, so {@link Block#free()} hands its memory back to the OS
+ * immediately instead of waiting for a GC to find it unreachable (which is what happens to the {@code int[]}s
+ * in {@link OOMSimulation} and to {@code ByteBuffer.allocateDirect} memory). The store refuses allocations
+ * beyond its capacity, so an off-heap cache cannot silently grow past what the container allows.
+ * Accessing a freed block throws {@link IllegalStateException} rather than reading stale memory. Arena memory is
+ * still accounted against {@code -XX:MaxDirectMemorySize} (default: the maximum heap size), so that limit has
+ * to be raised along with the capacity, or {@link #allocate} fails with {@link OutOfMemoryError}.
+ * <p>
+ * Blocks are confined to the thread that allocated them. The collector never scans or copies their contents:
+ * to G1 a block is a small {@code Block} object, however many ints it holds.
+ * <p>
+ * FFM is final from JDK 22; on JDK 21 it is a preview API, so this class (and {@link LiveSetSimulation}) is
+ * compiled separately by the build with {@code --enable-preview} there:
+ * <pre>{@code
+ * javac --release 21 --enable-preview GarbageCollectorStuff/*.java      # JDK 21
+ * javac GarbageCollectorStuff/*.java                                    # JDK 22+
+ * }</pre>
+ */
+public final class OffHeapIntStore implements AutoCloseable {
+
+    private final long capacityBytes;
+    private final Set<Block> blocks = new LinkedHashSet<>();
+    private long usedBytes;
+
+    public OffHeapIntStore(long capacityBytes) {
+        if (capacityBytes <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacityBytes);
+        }
+        this.capacityBytes = capacityBytes;
+    }
+
+    /**
+     * Allocates a zeroed block of {@code length} ints.
+     *
+     * @throws IllegalStateException if the block does not fit in the remaining capacity
+     */
+    public Block allocate(int length) {
+        long bytes = (long) length * Integer.BYTES;
+        if (length <= 0 || bytes > remainingBytes()) {
+            throw new IllegalStateException("cannot allocate " + bytes + " bytes: " + usedBytes + " of "
+                    + capacityBytes + " in use");
+        }
+        Arena arena = Arena.ofConfined();
+        Block block;
+        try {
+            block = new Block(arena, arena.allocate(bytes, Integer.BYTES), length);
+        } catch (Throwable t) {
+            arena.close(); // OutOfMemoryError or a size the arena rejects: do not leak the arena
+            throw t;
+        }
+        blocks.add(block);
+        usedBytes += bytes;
+        return block;
+    }
+
+    public long capacityBytes() {
+        return capacityBytes;
+    }
+
+    public long usedBytes() {
+        return usedBytes;
+    }
+
+    public long remainingBytes() {
+        return capacityBytes - usedBytes;
+    }
+
+    public int blockCount() {
+        return blocks.size();
+    }
+
+    /** Frees every block still allocated. */
+    @Override
+    public void close() {
+        for (Block block : blocks.toArray(new Block[0])) {
+            block.free();
+        }
+    }
+
+    /** A fixed-length run of off-heap ints; valid until {@link #free()}. */
+    public final class Block implements AutoCloseable {
+
+        private final Arena arena;
+        private final MemorySegment segment;
+        private final int length;
+
+        private Block(Arena arena, MemorySegment segment, int length) {
+            this.arena = arena;
+            this.segment = segment;
+            this.length = length;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public int get(int index) {
+            return segment.getAtIndex(ValueLayout.JAVA_INT, index);
+        }
+
+        public void set(int index, int value) {
+            segment.setAtIndex(ValueLayout.JAVA_INT, index, value);
+        }
+
+        public void fill(int value) {
+            for (int i = 0; i < length; i++) {
+                segment.setAtIndex(ValueLayout.JAVA_INT, i, value);
+            }
+        }
+
+        /** Copies {@code count} ints from {@code src[srcIndex..]} into this block at {@code index}. */
+        public void copyFrom(int[] src, int srcIndex, int index, int count) {
+            MemorySegment.copy(src, srcIndex, segment, ValueLayout.JAVA_INT, (long) index * Integer.BYTES, count);
+        }
+
+        /** Copies {@code count} ints from this block at {@code index} into {@code dst[dstIndex..]}. */
+        public void copyTo(int index, int[] dst, int dstIndex, int count) {
+            MemorySegment.copy(segment, ValueLayout.JAVA_INT, (long) index * Integer.BYTES, dst, dstIndex, count);
+        }
+
+        /** Releases the memory now; idempotent. */
+        public void free() {
+            if (blocks.remove(this)) {
+                usedBytes -= (long) length * Integer.BYTES;
+                arena.close();
+            }
+        }
+
+        @Override
+        public void close() {
+            free();
+        }
+    }
+}
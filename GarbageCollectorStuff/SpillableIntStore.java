@@ -0,0 +1,231 @@
+package GarbageCollectorStuff;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Managed buffer of {@code int[]} blocks that can move its coldest blocks to a spill file and bring them back on
+ * access – the {@code ArrayList<int[]>} of {@link OOMSimulation}, with somewhere to go when the heap is full.
+ * <p>
+ * Resident blocks are kept in access order ({@link LinkedHashMap} with {@code accessOrder=true}), so the head is
+ * always the least recently used. {@link #spill(long)} writes blocks from the head into the spill file and drops
+ * the heap reference; {@link #get(int)} reads a spilled block back into a fresh array and makes it the most
+ * recently used. Both go through the {@link FileChannel} and one reused direct buffer: a
+ * {@code MappedByteBuffer} per block would keep every mapping alive until a GC happened to unmap it, which is
+ * exactly when the heap is under pressure and GC is least welcome.
+ * <p>
+ * File space freed by reloads is kept as a list of free extents, merged with its neighbours and reused first-fit
+ * for blocks of any size; a free extent at the end of the file is truncated away. The file therefore stays
+ * bounded by the peak spilled size (plus fragmentation) instead of growing with every spill/reload cycle.
+ * <p>
+ * All methods are synchronized: {@link HeapPressureWatchdog} may call {@link #spill(long)} from the JMX
+ * notification thread while the application reads and writes.
+ */
+public final class SpillableIntStore implements AutoCloseable {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final LinkedHashMap<Integer, int[]> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, long[]> spilled = new HashMap<>(); // id -> {offset, length}
+    private final TreeMap<Long, Long> freeExtents = new TreeMap<>(); // offset -> bytes, never adjacent
+    private final ByteBuffer transfer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.nativeOrder());
+    private final IntBuffer transferInts = transfer.asIntBuffer();
+    private long fileEnd;
+    private long residentBytes;
+    private int nextId;
+    private long spillCount;
+    private long reloadCount;
+
+    public SpillableIntStore(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /** Stores {@code data} (not copied) and returns its id. */
+    public synchronized int put(int[] data) {
+        int id = nextId++;
+        resident.put(id, data);
+        residentBytes += bytes(data.length);
+        return id;
+    }
+
+    /** Returns the block, reloading it from the spill file if it was spilled. */
+    public synchronized int[] get(int id) {
+        int[] data = resident.get(id);
+        if (data != null) {
+            return data;
+        }
+        long[] slot = spilled.remove(id);
+        if (slot == null) {
+            throw new IllegalArgumentException("no block " + id);
+        }
+        int length = (int) slot[1];
+        data = new int[length];
+        try {
+            read(slot[0], data);
+            release(slot[0], bytes(length));
+        } catch (IOException e) {
+            spilled.put(id, slot);
+            throw new UncheckedIOException(e);
+        }
+        resident.put(id, data);
+        residentBytes += bytes(length);
+        reloadCount++;
+        return data;
+    }
+
+    /** Spills least recently used blocks until at least {@code bytes} of heap are released; returns bytes released. */
+    public synchronized long spill(long bytes) {
+        long released = 0;
+        Iterator<Map.Entry<Integer, int[]>> coldest = resident.entrySet().iterator();
+        while (released < bytes && coldest.hasNext()) {
+            Map.Entry<Integer, int[]> entry = coldest.next();
+            int[] data = entry.getValue();
+            long offset = reserve(bytes(data.length));
+            try {
+                write(offset, data);
+            } catch (IOException e) {
+                freeExtent(offset, bytes(data.length));
+                throw new UncheckedIOException(e);
+            }
+            spilled.put(entry.getKey(), new long[]{offset, data.length});
+            coldest.remove();
+            residentBytes -= bytes(data.length);
+            released += bytes(data.length);
+            spillCount++;
+        }
+        return released;
+    }
+
+    public synchronized int size() {
+        return resident.size() + spilled.size();
+    }
+
+    public synchronized int residentCount() {
+        return resident.size();
+    }
+
+    public synchronized int spilledCount() {
+        return spilled.size();
+    }
+
+    public synchronized long residentBytes() {
+        return residentBytes;
+    }
+
+    public synchronized long fileBytes() {
+        return fileEnd;
+    }
+
+    public synchronized String stats() {
+        return String.format("%d blocks: %d resident (%d MB), %d spilled; %d spills, %d reloads, spill file %d MB",
+                size(), resident.size(), residentBytes >> 20, spilled.size(), spillCount, reloadCount, fileEnd >> 20);
+    }
+
+    /** First free extent that fits, or the end of the file. */
+    private long reserve(long bytes) {
+        for (Map.Entry<Long, Long> extent : freeExtents.entrySet()) {
+            long offset = extent.getKey();
+            long free = extent.getValue();
+            if (free >= bytes) {
+                freeExtents.remove(offset);
+                if (free > bytes) {
+                    freeExtents.put(offset + bytes, free - bytes);
+                }
+                return offset;
+            }
+        }
+        long offset = fileEnd;
+        fileEnd += bytes;
+        return offset;
+    }
+
+    /** Returns a reloaded block's space and gives a free tail of the file back to the file system. */
+    private void release(long offset, long bytes) throws IOException {
+        long end = fileEnd;
+        freeExtent(offset, bytes);
+        if (fileEnd < end) {
+            channel.truncate(fileEnd);
+        }
+    }
+
+    /**
+     * Adds {@code [offset, offset + bytes)} to the free extents, merged with its neighbours. A merged extent that
+     * reaches the end of the file is not kept; the file's used end moves back to its start instead.
+     */
+    private void freeExtent(long offset, long bytes) {
+        Map.Entry<Long, Long> before = freeExtents.floorEntry(offset); // an immutable snapshot entry
+        if (before != null && before.getKey() + before.getValue() == offset) {
+            freeExtents.remove(before.getKey());
+            offset = before.getKey();
+            bytes += before.getValue();
+        }
+        Long after = freeExtents.remove(offset + bytes);
+        if (after != null) {
+            bytes += after;
+        }
+        if (offset + bytes == fileEnd) {
+            fileEnd = offset;
+        } else {
+            freeExtents.put(offset, bytes);
+        }
+    }
+
+    private void write(long offset, int[] data) throws IOException {
+        for (int from = 0; from < data.length; ) {
+            int n = Math.min(data.length - from, transferInts.capacity());
+            transferInts.clear();
+            transferInts.put(data, from, n);
+            transfer.clear().limit(n * Integer.BYTES);
+            long position = offset + bytes(from);
+            while (transfer.hasRemaining()) {
+                position += channel.write(transfer, position);
+            }
+            from += n;
+        }
+    }
+
+    private void read(long offset, int[] data) throws IOException {
+        for (int from = 0; from < data.length; ) {
+            int n = Math.min(data.length - from, transferInts.capacity());
+            transfer.clear().limit(n * Integer.BYTES);
+            long position = offset + bytes(from);
+            while (transfer.hasRemaining()) {
+                int read = channel.read(transfer, position);
+                if (read < 0) {
+                    throw new IOException("spill file ends inside block at " + offset);
+                }
+                position += read;
+            }
+            transferInts.clear();
+            transferInts.get(data, from, n);
+            from += n;
+        }
+    }
+
+    private static long bytes(int ints) {
+        return (long) ints * Integer.BYTES;
+    }
+
+    /** Closes and deletes the spill file. */
+    @Override
+    public synchronized void close() throws IOException {
+        resident.clear();
+        spilled.clear();
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+}
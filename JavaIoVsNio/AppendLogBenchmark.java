@@ -0,0 +1,87 @@
+package JavaIoVsNio;
+
+import metrics.LatencyHistogram;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Shared-file append benchmark: {@code producers} threads append {@code records} small records each to
+ * one file, which is the production case the per-thread {@code output_*_<threadId>.txt} benchmarks
+ * never exercise.
+ * <p>
+ * Four configurations are compared:
+ * <ul>
+ *   <li><b>ring</b> – {@link RingAppendLog}, no fsync until close.</li>
+ *   <li><b>ring+group-commit</b> – {@link RingAppendLog}, each producer waits for its record to be forced;
+ *       one fsync covers every record in the batch.</li>
+ *   <li><b>positional</b> – {@link PositionalAppendLog}, atomic offset reservation + positional write.</li>
+ *   <li><b>positional+force</b> – same, forcing after every record.</li>
+ * </ul>
+ * <b>Run command:</b>
+ * <pre>{@code
+ * java JavaIoVsNio.AppendLogBenchmark 16 20000
+ * }</pre>
+ */
+public class AppendLogBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int records = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        Path file = Files.createTempFile("append-log", ".txt");
+
+        run("ring", producers, records, false, () -> new RingAppendLog(file, 8192, 1024, false));
+        run("ring+group-commit", producers, records, true, () -> new RingAppendLog(file, 8192, 1024, true));
+        run("positional", producers, records, false, () -> new PositionalAppendLog(file, false));
+        run("positional+force", producers, records, true, () -> new PositionalAppendLog(file, true));
+
+        Files.deleteIfExists(file);
+    }
+
+    private static void run(String name, int producers, int records, boolean durable,
+                            Callable<Appender> factory) throws Exception {
+        long[] latencies = new long[producers * records];
+        Appender log = factory.call();
+        long start = System.nanoTime();
+        try (log) {
+            ExecutorService executor = Executors.newFixedThreadPool(producers);
+            try {
+                List<Future<?>> futures = new ArrayList<>(producers);
+                for (int p = 0; p < producers; p++) {
+                    int producer = p;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < records; i++) {
+                            long t0 = System.nanoTime();
+                            long seq = log.append(("producer " + producer + " record " + i + "\n").getBytes());
+                            if (durable) {
+                                log.awaitCommitted(seq);
+                            }
+                            latencies[producer * records + i] = System.nanoTime() - t0;
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> f : futures) {
+                    f.get();
+                }
+            } finally {
+                // Not close(): after a failed append the other producers may be parked in awaitCommitted.
+                executor.shutdownNow();
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        System.out.printf("%-18s %6d ms  %10.0f records/s  p50 %8.1f us  p99 %8.1f us  max %8.1f us%n",
+                name, elapsedNanos / 1_000_000, latencies.length / (elapsedNanos / 1e9),
+                LatencyHistogram.percentile(latencies, 0.50) / 1e3,
+                LatencyHistogram.percentile(latencies, 0.99) / 1e3,
+                latencies[latencies.length - 1] / 1e3);
+        if (log instanceof RingAppendLog ring) {
+            System.out.printf("%-18s %d batches, %d fsyncs%n", "", ring.batches(), ring.forces());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package JavaIoVsNio;
+
+import java.io.IOException;
+
+/** Many threads appending records to one shared file; see {@link AppendLogBenchmark}. */
+public interface Appender extends AutoCloseable {
+
+    /** Appends {@code record} and returns a sequence number to pass to {@link #awaitCommitted(long)}. */
+    long append(byte[] record) throws IOException;
+
+    /** Blocks until the record with {@code seq} is as durable as this appender promises. */
+    void awaitCommitted(long seq) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,167 @@
+package JavaIoVsNio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardOpenOption.*;
+import static metrics.LatencyHistogram.percentile;
+
+/**
+ * Execution-model comparison for thousands of concurrent file writes rather than 8.
+ * <ul>
+ *   <li><b>fixed</b> – the {@link NioWriterBenchmark} model: blocking writes on {@code newFixedThreadPool(8)}.</li>
+ *   <li><b>virtual</b> – the same blocking write, one virtual thread per file via
+ *       {@link Executors#newVirtualThreadPerTaskExecutor()}.</li>
+ *   <li><b>async</b> – {@link AsynchronousFileChannel} with {@link CompletionHandler}s, up to
+ *       {@code maxInFlight} files being written at once and no thread parked per file.</li>
+ * </ul>
+ * Each mode reports throughput plus the per-file latency distribution (submit to file closed), which is
+ * where a small fixed pool hurts: files at the back of the queue wait for everyone in front of them.
+ * <p>
+ * <b>Run command (JDK 21+):</b>
+ * <pre>{@code
+ * java JavaIoVsNio.AsyncWriterBenchmark 5000 65536 512    # files, bytes per file, async in-flight limit
+ * }</pre>
+ */
+public class AsyncWriterBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int bytesPerFile = args.length > 1 ? Integer.parseInt(args[1]) : 64 * 1024;
+        int maxInFlight = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+
+        byte[] data = new byte[bytesPerFile];
+        StreamingWriterBenchmark.fill(ByteBuffer.wrap(data), StreamingWriterBenchmark.LINE, 0, bytesPerFile);
+        Path dir = Files.createTempDirectory("async-writer");
+        List<Path> files = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            files.add(dir.resolve("output_" + i + ".txt"));
+        }
+
+        try (ExecutorService fixed = Executors.newFixedThreadPool(8)) {
+            report("fixed(8)", files, bytesPerFile, () -> writeAll(fixed, files, data));
+        }
+        try (ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor()) {
+            report("virtual", files, bytesPerFile, () -> writeAll(virtual, files, data));
+        }
+        report("async(" + maxInFlight + ")", files, bytesPerFile, () -> writeAllAsync(files, data, maxInFlight));
+
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private static void report(String mode, List<Path> files, int bytesPerFile, Callable<long[]> run) throws Exception {
+        long start = System.nanoTime();
+        long[] latencies = run.call();
+        long elapsedNanos = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        double mb = (double) files.size() * bytesPerFile / (1024 * 1024);
+        System.out.printf("%-12s %6d ms  %8.1f MB/s  p50 %6.2f ms  p99 %6.2f ms  max %6.2f ms%n",
+                mode, elapsedNanos / 1_000_000, mb / (elapsedNanos / 1e9),
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    /**
+     * Blocking {@link NioWriterBenchmark#write(Path, byte[])} per file on {@code executor}.
+     *
+     * @return per-file latency in nanoseconds, measured from submission to completion
+     */
+    public static long[] writeAll(ExecutorService executor, List<Path> files, byte[] data) throws Exception {
+        long[] latencies = new long[files.size()];
+        List<Future<?>> futures = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            futures.add(executor.submit(() -> {
+                NioWriterBenchmark.write(files.get(index), data);
+                latencies[index] = System.nanoTime() - submitted;
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        return latencies;
+    }
+
+    /**
+     * Writes every file through {@link AsynchronousFileChannel}, keeping at most {@code maxInFlight}
+     * files open. Completion handlers chain partial writes and release the slot when a file is done.
+     *
+     * @return per-file latency in nanoseconds, measured from the start of the call to file closed
+     */
+    public static long[] writeAllAsync(List<Path> files, byte[] data, int maxInFlight) throws Exception {
+        long[] latencies = new long[files.size()];
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        CountDownLatch done = new CountDownLatch(files.size());
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        ByteBuffer source = ByteBuffer.wrap(data).asReadOnlyBuffer();
+        long started = System.nanoTime();
+
+        for (int i = 0; i < files.size(); i++) {
+            inFlight.acquire();
+            AsynchronousFileChannel channel;
+            try {
+                channel = AsynchronousFileChannel.open(files.get(i), CREATE, WRITE, TRUNCATE_EXISTING);
+            } catch (IOException e) {
+                failures.add(e);
+                inFlight.release();
+                done.countDown();
+                continue;
+            }
+            int index = i;
+            ByteBuffer buffer = source.duplicate();
+            channel.write(buffer, 0, null, new CompletionHandler<Integer, Void>() {
+                private long position;
+
+                @Override
+                public void completed(Integer written, Void attachment) {
+                    position += written;
+                    if (buffer.hasRemaining()) {
+                        channel.write(buffer, position, null, this);
+                        return;
+                    }
+                    finish(null);
+                }
+
+                @Override
+                public void failed(Throwable exc, Void attachment) {
+                    finish(exc);
+                }
+
+                private void finish(Throwable failure) {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        failure = failure == null ? e : failure;
+                    }
+                    if (failure != null) {
+                        failures.add(failure);
+                    }
+                    latencies[index] = System.nanoTime() - started;
+                    inFlight.release();
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        if (!failures.isEmpty()) {
+            IOException e = new IOException(failures.size() + " async writes failed", failures.peek());
+            failures.stream().skip(1).forEach(e::addSuppressed);
+            throw e;
+        }
+        return latencies;
+    }
+}
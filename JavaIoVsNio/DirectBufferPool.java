@@ -0,0 +1,62 @@
+package JavaIoVsNio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small pool of equally sized direct {@link ByteBuffer}s shared by the IO and NIO writers.
+ * <p>
+ * Direct buffers are expensive to allocate and are only freed when their owner is collected, so
+ * allocating one per task just moves the cost from the heap into native memory. Writers borrow a
+ * buffer with {@link #acquire()}, fill and drain it as often as they like, and hand it back with
+ * {@link #release(ByteBuffer)}. At most {@code maxPooled} idle buffers are retained; extra ones are
+ * simply dropped for the GC.
+ */
+public class DirectBufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    public DirectBufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize <= 0 || maxPooled <= 0) {
+            throw new IllegalArgumentException("bufferSize and maxPooled must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /** Returns a cleared buffer of {@link #bufferSize()} bytes, allocating only when the pool is empty. */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = idle.poll();
+        if (buffer == null) {
+            allocated.incrementAndGet();
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        idleCount.decrementAndGet();
+        return buffer.clear();
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize || !buffer.isDirect()) {
+            throw new IllegalArgumentException("buffer was not acquired from this pool");
+        }
+        if (idleCount.incrementAndGet() <= maxPooled) {
+            idle.offer(buffer);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /** Total direct buffers this pool ever created; stays flat once the pool is warm. */
+    public int allocatedCount() {
+        return allocated.get();
+    }
+}
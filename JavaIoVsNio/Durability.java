@@ -0,0 +1,212 @@
+package JavaIoVsNio;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * How hard a writer pushes its bytes towards the disk, plus the latency of every sync it paid for.
+ * <p>
+ * Without any of these the writers only measure copies into the page cache; an SLA defined on durable
+ * writes needs one of the other modes:
+ * <ul>
+ *   <li>{@link Mode#NONE} – leave it to the kernel's writeback.</li>
+ *   <li>{@link Mode#FORCE_AT_END} – one {@link FileChannel#force(boolean)} before close.</li>
+ *   <li>{@link Mode#FORCE_EVERY_N_BYTES} – force whenever {@code forceIntervalBytes} were written since the last one.</li>
+ *   <li>{@link Mode#DSYNC} / {@link Mode#SYNC} – open with {@code O_DSYNC} / {@code O_SYNC}; every write returns
+ *       only once it is durable, so every write is a sync and is timed as one.</li>
+ * </ul>
+ * One instance is shared by all files of a run; {@link #open(Path)} returns a per-file {@link Channel} and
+ * {@link #openStream(Path)} a per-file {@link Stream} for the {@code OutputStream} writers.
+ */
+public final class Durability {
+
+    public enum Mode { NONE, FORCE_AT_END, FORCE_EVERY_N_BYTES, DSYNC, SYNC }
+
+    private final Mode mode;
+    private final long forceIntervalBytes;
+
+    private long[] syncNanos = new long[64];
+    private int syncCount;
+
+    public Durability(Mode mode, long forceIntervalBytes) {
+        if (mode == Mode.FORCE_EVERY_N_BYTES && forceIntervalBytes <= 0) {
+            throw new IllegalArgumentException("FORCE_EVERY_N_BYTES needs a positive interval");
+        }
+        this.mode = mode;
+        this.forceIntervalBytes = forceIntervalBytes;
+    }
+
+    public static Durability of(Mode mode) {
+        return new Durability(mode, 0);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.FORCE_EVERY_N_BYTES ? mode + "(" + forceIntervalBytes + ")" : mode.toString();
+    }
+
+    public Channel open(Path file) throws IOException {
+        return new Channel(FileChannel.open(file, options()));
+    }
+
+    /**
+     * Opens {@code file} for a stream writer. {@link FileOutputStream} cannot be opened with {@code O_DSYNC} or
+     * {@code O_SYNC}, so those two modes go through {@link Files#newOutputStream}; every other mode writes through
+     * a plain {@link FileOutputStream} and forces its channel.
+     */
+    public Stream openStream(Path file) throws IOException {
+        if (mode == Mode.DSYNC || mode == Mode.SYNC) {
+            return new Stream(Files.newOutputStream(file, options()), null);
+        }
+        FileOutputStream fos = new FileOutputStream(file.toFile());
+        return new Stream(fos, fos.getChannel());
+    }
+
+    private OpenOption[] options() {
+        return switch (mode) {
+            case DSYNC -> new OpenOption[]{CREATE, WRITE, TRUNCATE_EXISTING, DSYNC};
+            case SYNC -> new OpenOption[]{CREATE, WRITE, TRUNCATE_EXISTING, SYNC};
+            default -> new OpenOption[]{CREATE, WRITE, TRUNCATE_EXISTING};
+        };
+    }
+
+    private synchronized void recordSync(long nanos) {
+        if (syncCount == syncNanos.length) {
+            syncNanos = Arrays.copyOf(syncNanos, syncCount * 2);
+        }
+        syncNanos[syncCount++] = nanos;
+    }
+
+    /** Sorted copy of every sync latency recorded so far, in nanoseconds. */
+    public synchronized long[] syncLatencies() {
+        long[] copy = Arrays.copyOf(syncNanos, syncCount);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    public synchronized void reset() {
+        syncCount = 0;
+    }
+
+    /** A file opened under this durability mode. Not thread-safe; one per writer. */
+    public final class Channel implements AutoCloseable {
+
+        private final FileChannel channel;
+        private long unforcedBytes;
+
+        private Channel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /** Writes all of {@code buffer}, forcing or timing synchronous writes as the mode requires. */
+        public void write(ByteBuffer buffer) throws IOException {
+            boolean syncWrite = mode == Mode.DSYNC || mode == Mode.SYNC;
+            int limit = buffer.limit();
+            while (buffer.hasRemaining()) {
+                if (mode == Mode.FORCE_EVERY_N_BYTES) {
+                    // Cut large buffers at the next force boundary so the interval holds for any caller.
+                    buffer.limit((int) Math.min(limit, buffer.position() + forceIntervalBytes - unforcedBytes));
+                }
+                long start = syncWrite ? System.nanoTime() : 0;
+                int written = channel.write(buffer);
+                buffer.limit(limit);
+                if (syncWrite) {
+                    recordSync(System.nanoTime() - start);
+                }
+                unforcedBytes += written;
+                if (mode == Mode.FORCE_EVERY_N_BYTES && unforcedBytes >= forceIntervalBytes) {
+                    force();
+                }
+            }
+        }
+
+        private void force() throws IOException {
+            long start = System.nanoTime();
+            channel.force(false);
+            recordSync(System.nanoTime() - start);
+            unforcedBytes = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if ((mode == Mode.FORCE_AT_END || mode == Mode.FORCE_EVERY_N_BYTES) && unforcedBytes > 0) {
+                    force();
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /** {@link Channel} for {@code OutputStream} writers: same forcing and timing, arrays instead of buffers. */
+    public final class Stream implements AutoCloseable {
+
+        private final OutputStream out;
+        /** Where {@link #force()} goes; {@code null} for {@code DSYNC}/{@code SYNC}, which never force. */
+        private final FileChannel channel;
+        private long unforcedBytes;
+
+        private Stream(OutputStream out, FileChannel channel) {
+            this.out = out;
+            this.channel = channel;
+        }
+
+        public void write(byte[] data) throws IOException {
+            write(data, 0, data.length);
+        }
+
+        /** Writes {@code length} bytes of {@code data}, forcing or timing synchronous writes as the mode requires. */
+        public void write(byte[] data, int offset, int length) throws IOException {
+            boolean syncWrite = mode == Mode.DSYNC || mode == Mode.SYNC;
+            int end = offset + length;
+            while (offset < end) {
+                int n = end - offset;
+                if (mode == Mode.FORCE_EVERY_N_BYTES) {
+                    n = (int) Math.min(n, forceIntervalBytes - unforcedBytes);
+                }
+                long start = syncWrite ? System.nanoTime() : 0;
+                out.write(data, offset, n);
+                if (syncWrite) {
+                    recordSync(System.nanoTime() - start);
+                }
+                offset += n;
+                unforcedBytes += n;
+                if (mode == Mode.FORCE_EVERY_N_BYTES && unforcedBytes >= forceIntervalBytes) {
+                    force();
+                }
+            }
+        }
+
+        private void force() throws IOException {
+            long start = System.nanoTime();
+            channel.force(false);
+            recordSync(System.nanoTime() - start);
+            unforcedBytes = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if ((mode == Mode.FORCE_AT_END || mode == Mode.FORCE_EVERY_N_BYTES) && unforcedBytes > 0) {
+                    force();
+                }
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
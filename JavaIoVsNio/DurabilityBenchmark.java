@@ -0,0 +1,88 @@
+package JavaIoVsNio;
+
+import metrics.LatencyHistogram;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs the streaming IO and NIO writers under every {@link Durability} mode and reports throughput next to the
+ * sync latency distribution (each {@code force()}, or each write for {@code DSYNC}/{@code SYNC}).
+ * <p>
+ * <b>Run command:</b>
+ * <pre>{@code
+ * java JavaIoVsNio.DurabilityBenchmark 64 1048576    # MB per file, force interval in bytes
+ * }</pre>
+ * Run it on the storage the service really uses; tmpfs and some container overlays turn fsync into a no-op.
+ */
+public class DurabilityBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long bytesPerFile = (args.length > 0 ? Long.parseLong(args[0]) : 32) * 1024 * 1024;
+        long forceInterval = args.length > 1 ? Long.parseLong(args[1]) : 1024 * 1024;
+        int threads = 8;
+        DirectBufferPool pool = new DirectBufferPool(64 * 1024, threads);
+        Path dir = Files.createTempDirectory("durability");
+
+        Durability[] modes = {
+                Durability.of(Durability.Mode.NONE),
+                Durability.of(Durability.Mode.FORCE_AT_END),
+                new Durability(Durability.Mode.FORCE_EVERY_N_BYTES, forceInterval),
+                Durability.of(Durability.Mode.DSYNC),
+                Durability.of(Durability.Mode.SYNC),
+        };
+        for (String writer : new String[]{"io", "nio"}) {
+            for (Durability durability : modes) {
+                durability.reset();
+                run(writer, durability, dir, threads, bytesPerFile, pool);
+            }
+        }
+
+        for (int i = 0; i < threads; i++) {
+            Files.deleteIfExists(dir.resolve("output_" + i + ".txt"));
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private static void run(String writer, Durability durability, Path dir, int threads, long bytesPerFile,
+                            DirectBufferPool pool) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Path file = dir.resolve("output_" + i + ".txt");
+            futures.add(executor.submit(() -> {
+                if (writer.equals("io")) {
+                    StreamingWriterBenchmark.writeIo(file, StreamingWriterBenchmark.LINE, bytesPerFile, pool, durability);
+                } else {
+                    StreamingWriterBenchmark.writeNio(file, StreamingWriterBenchmark.LINE, bytesPerFile, pool, durability);
+                }
+                return null;
+            }));
+        }
+        executor.shutdown();
+        try {
+            for (Future<?> f : futures) {
+                f.get(); // a failed write, force or DSYNC open must not be reported as throughput
+            }
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        long[] syncs = durability.syncLatencies();
+        double mb = (double) threads * bytesPerFile / (1024 * 1024);
+        System.out.printf("%-4s %-28s %8.1f MB/s  syncs %7d", writer, durability, mb / (elapsedNanos / 1e9), syncs.length);
+        if (syncs.length > 0) {
+            System.out.printf("  p50 %8.3f ms  p99 %8.3f ms  max %8.3f ms",
+                    LatencyHistogram.percentile(syncs, 0.50) / 1e6,
+                    LatencyHistogram.percentile(syncs, 0.99) / 1e6,
+                    syncs[syncs.length - 1] / 1e6);
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,10 @@
+package JavaIoVsNio;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/** One writer strategy applied to one output file; lets the mains and the JMH harness share runners. */
+@FunctionalInterface
+public interface FileTask {
+    void write(Path file) throws IOException;
+}
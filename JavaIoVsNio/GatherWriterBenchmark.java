@@ -0,0 +1,131 @@
+package JavaIoVsNio;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Record-oriented output: many small log lines instead of one big string.
+ * <p>
+ * {@link #writePerRecord} is what {@link IoWriterBenchmark} turns into once the payload is a stream of
+ * records: one {@code FileOutputStream.write} (and so one {@code write(2)} syscall) per record.
+ * {@link #writeGathering} batches up to {@code batchSize} records into a {@code ByteBuffer[]} and
+ * hands the whole batch to {@link FileChannel#write(ByteBuffer[], int, int)}, which becomes a single
+ * {@code writev(2)}. The records are slices of one direct buffer, so the JDK passes their addresses straight
+ * to the kernel; heap buffers would first be copied into a temporary direct buffer on every write.
+ * <p>
+ * Linux caps a single {@code writev} at {@code IOV_MAX} (1024) segments and the JDK splits larger
+ * batches itself, so batch sizes beyond 1024 only save Java-side loop overhead.
+ * <p>
+ * <b>Run command:</b>
+ * <pre>{@code
+ * java JavaIoVsNio.GatherWriterBenchmark 1000000 1024
+ * }</pre>
+ */
+public class GatherWriterBenchmark {
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    public static void main(String[] args) throws Exception {
+        int recordCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BATCH_SIZE;
+
+        long perRecordMs = run("record", recordCount, (file, records) -> writePerRecord(file, records));
+        long gatherMs = run("gather", recordCount, (file, records) -> writeGathering(file, records, batchSize));
+
+        System.out.println("Per-record IO Time: " + perRecordMs + " ms");
+        System.out.println("Gathering NIO Time: " + gatherMs + " ms (batch=" + batchSize + ")");
+    }
+
+    /** Each task gets its own records, built before the clock starts since gathering writes consume them. */
+    private static long run(String name, int recordCount, RecordTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        ByteBuffer[][] perTask = new ByteBuffer[8][];
+        for (int i = 0; i < 8; i++) perTask[i] = records(recordCount);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 8; i++) {
+            ByteBuffer[] records = perTask[i];
+            executor.submit(() -> {
+                try {
+                    task.write(Path.of("output_" + name + "_" + Thread.currentThread().threadId() + ".txt"), records);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.MINUTES);
+        return System.currentTimeMillis() - start;
+    }
+
+    /** Builds {@code count} small records like {@code "log line 42\n"} as slices of one direct buffer. */
+    public static ByteBuffer[] records(int count) {
+        StringBuilder text = new StringBuilder();
+        int[] ends = new int[count];
+        for (int i = 0; i < count; i++) {
+            ends[i] = text.append("log line ").append(i).append('\n').length();
+        }
+        // ASCII only, so char offsets are byte offsets
+        byte[] bytes = text.toString().getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer all = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+        ByteBuffer[] records = new ByteBuffer[count];
+        for (int i = 0, start = 0; i < count; start = ends[i++]) {
+            records[i] = all.slice(start, ends[i] - start);
+        }
+        return records;
+    }
+
+    /**
+     * One {@link FileOutputStream#write(byte[], int, int)} per record; records are not consumed. Direct records
+     * have no backing array, so each is copied into a reused scratch array first – a few bytes per record,
+     * small next to the syscall it is measured against.
+     */
+    public static void writePerRecord(Path file, ByteBuffer[] records) throws IOException {
+        byte[] scratch = new byte[256];
+        try (FileOutputStream fos = new FileOutputStream(file.toFile())) {
+            for (ByteBuffer record : records) {
+                int length = record.remaining();
+                if (length > scratch.length) {
+                    scratch = new byte[length];
+                }
+                record.get(record.position(), scratch, 0, length);
+                fos.write(scratch, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Writes the records in gathering batches of {@code batchSize}. Every record buffer is left fully
+     * consumed ({@code position == limit}); callers that reuse them must {@link ByteBuffer#rewind()}.
+     */
+    public static void writeGathering(Path file, ByteBuffer[] records, int batchSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            for (int offset = 0; offset < records.length; offset += batchSize) {
+                int length = Math.min(batchSize, records.length - offset);
+                writeFully(channel, records, offset, length);
+            }
+        }
+    }
+
+    /** A gathering write may stop part-way through the batch, so keep going from the first unfinished record. */
+    static void writeFully(FileChannel channel, ByteBuffer[] records, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            channel.write(records, offset, end - offset);
+            while (offset < end && !records[offset].hasRemaining()) {
+                offset++;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordTask {
+        void write(Path file, ByteBuffer[] records) throws IOException;
+    }
+}
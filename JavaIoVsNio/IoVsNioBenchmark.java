@@ -1,3 +1,281 @@
 package JavaIoVsNio;
 
+import metrics.LatencyHistogram;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Matrix runner for the writer strategies in this package: every combination of
+ * strategy × payload size × thread count × buffer size is warmed up, measured, and written to CSV and JSON
+ * so results can be diffed across kernels, JDKs and storage nodes.
+ * <p>
+ * One iteration submits {@code threads} tasks, each writing one file of {@code payloadMb}. For every cell the
+ * runner records per-task latency (submit to file closed) over the measured iterations and reports
+ * p50/p99/max, aggregate MB/s and the GC time/count spent during measurement.
+ * <p>
+ * Buffer size only applies to the {@code STREAM_*} strategies; the others run once per
+ * payload/thread combination and are reported with {@code bufferKb = 0}. From 2 GB upwards the payload no
+ * longer fits in one {@code byte[]}: {@code NIO} and {@code MMAP} then repeat a 64 MB block, and {@code IO},
+ * which can only write a single array, is skipped. They write whole blocks only, so a payload that is not a
+ * multiple of 64 MB is rounded down; MB/s is computed from the bytes actually written.
+ * <p>
+ * <b>Run command:</b>
+ * <pre>{@code
+ * java JavaIoVsNio.IoVsNioBenchmark --strategies=IO,NIO,MMAP,STREAM_IO,STREAM_NIO \
+ *      --payloadMb=13,256 --threads=1,8 --bufferKb=64,1024 --warmup=2 --iterations=5 --out=results
+ * }</pre>
+ * writes {@code results.csv} and {@code results.json} in the working directory.
+ */
+public class IoVsNioBenchmark {
+
+    static final Set<String> OPTIONS =
+            new TreeSet<>(List.of("strategies", "payloadMb", "threads", "bufferKb", "warmup", "iterations", "out"));
+
+    enum Strategy {
+        IO(false),
+        NIO(false),
+        MMAP(false),
+        STREAM_IO(true),
+        STREAM_NIO(true);
+
+        final boolean usesBuffer;
+
+        Strategy(boolean usesBuffer) {
+            this.usesBuffer = usesBuffer;
+        }
+
+        void write(Path file, byte[] block, long copies, long payloadBytes, DirectBufferPool pool) throws IOException {
+            switch (this) {
+                case IO -> IoWriterBenchmark.write(file, block);
+                case NIO -> NioWriterBenchmark.write(file, block, copies);
+                case MMAP -> MappedWriterBenchmark.write(file, block, copies, MappedWriterBenchmark.DEFAULT_WINDOW_BYTES, false);
+                case STREAM_IO -> StreamingWriterBenchmark.writeIo(file, StreamingWriterBenchmark.LINE, payloadBytes, pool);
+                case STREAM_NIO -> StreamingWriterBenchmark.writeNio(file, StreamingWriterBenchmark.LINE, payloadBytes, pool);
+            }
+        }
+    }
+
+    record Cell(Strategy strategy, long payloadMb, int threads, int bufferKb) {
+    }
+
+    record Result(Cell cell, long p50Nanos, long p99Nanos, long maxNanos, double mbPerSecond,
+                  long gcMillis, long gcCount) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args, OPTIONS);
+        List<Strategy> strategies = new ArrayList<>();
+        for (String s : options.getOrDefault("strategies", "IO,NIO,MMAP,STREAM_IO,STREAM_NIO").split(",")) {
+            strategies.add(Strategy.valueOf(s.trim().toUpperCase(Locale.ROOT)));
+        }
+        long[] payloadsMb = longs(options.getOrDefault("payloadMb", "13,128"));
+        long[] threadCounts = longs(options.getOrDefault("threads", "1,8"));
+        long[] buffersKb = longs(options.getOrDefault("bufferKb", "64,1024"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "2"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "5"));
+        if (warmup < 0 || iterations < 1) {
+            throw new IllegalArgumentException("need --warmup >= 0 and --iterations >= 1");
+        }
+        if (Arrays.stream(payloadsMb).anyMatch(mb -> mb < 1)) {
+            throw new IllegalArgumentException("need --payloadMb >= 1");
+        }
+        if (Arrays.stream(threadCounts).anyMatch(n -> n < 1) || Arrays.stream(buffersKb).anyMatch(kb -> kb < 1)) {
+            throw new IllegalArgumentException("need --threads >= 1 and --bufferKb >= 1");
+        }
+        String out = options.getOrDefault("out", "results");
+
+        List<Cell> cells = new ArrayList<>();
+        for (Strategy strategy : strategies) {
+            for (long payloadMb : payloadsMb) {
+                if (strategy == Strategy.IO && blockMb(payloadMb) != payloadMb) {
+                    System.out.println("skip IO " + payloadMb + " MB: payload does not fit in a byte[]");
+                    continue;
+                }
+                for (long threads : threadCounts) {
+                    if (strategy.usesBuffer) {
+                        for (long bufferKb : buffersKb) {
+                            cells.add(new Cell(strategy, payloadMb, (int) threads, (int) bufferKb));
+                        }
+                    } else {
+                        cells.add(new Cell(strategy, payloadMb, (int) threads, 0));
+                    }
+                }
+            }
+        }
+
+        Path dir = Files.createTempDirectory("io-vs-nio");
+        List<Result> results = new ArrayList<>();
+        Map<Long, byte[]> payloads = new HashMap<>();
+        try {
+            for (Cell cell : cells) {
+                byte[] block = cell.strategy.usesBuffer ? null
+                        : payloads.computeIfAbsent(blockMb(cell.payloadMb), IoVsNioBenchmark::payload);
+                Result result = run(cell, block, warmup, iterations, dir);
+                results.add(result);
+                System.out.printf("%-10s %6d MB  %3d threads  %5d KB  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms  %8.1f MB/s  gc %d ms (%d)%n",
+                        cell.strategy, cell.payloadMb, cell.threads, cell.bufferKb,
+                        result.p50Nanos / 1e6, result.p99Nanos / 1e6, result.maxNanos / 1e6,
+                        result.mbPerSecond, result.gcMillis, result.gcCount);
+            }
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path p : files.toList()) {
+                    Files.deleteIfExists(p);
+                }
+            }
+            Files.deleteIfExists(dir);
+        }
+
+        writeCsv(Path.of(out + ".csv"), results);
+        writeJson(Path.of(out + ".json"), results, warmup, iterations);
+        System.out.println("Wrote " + out + ".csv and " + out + ".json");
+    }
+
+    private static long blockMb(long payloadMb) {
+        return payloadMb * 1024 * 1024 < Integer.MAX_VALUE ? payloadMb : 64;
+    }
+
+    /** The 13-byte line repeated up to {@code payloadMb}, the same bytes the streaming strategies generate. */
+    private static byte[] payload(long payloadMb) {
+        byte[] data = new byte[(int) (payloadMb * 1024 * 1024)];
+        StreamingWriterBenchmark.fill(ByteBuffer.wrap(data), StreamingWriterBenchmark.LINE, 0, data.length);
+        return data;
+    }
+
+    static Result run(Cell cell, byte[] block, int warmup, int iterations, Path dir) throws Exception {
+        long payloadBytes = cell.payloadMb * 1024 * 1024;
+        long copies = block == null ? 0 : payloadBytes / block.length;
+        DirectBufferPool pool = cell.strategy.usesBuffer ? new DirectBufferPool(cell.bufferKb * 1024, cell.threads) : null;
+        ExecutorService executor = Executors.newFixedThreadPool(cell.threads);
+        long[] latencies = new long[cell.threads * iterations];
+        long measuredNanos = 0;
+        long gcMillisBefore = 0, gcCountBefore = 0;
+        try {
+            for (int i = 0; i < warmup + iterations; i++) {
+                boolean measured = i >= warmup;
+                if (i == warmup) {
+                    gcMillisBefore = gcMillis();
+                    gcCountBefore = gcCount();
+                }
+                long[] taskNanos = new long[cell.threads];
+                List<Future<?>> futures = new ArrayList<>(cell.threads);
+                long start = System.nanoTime();
+                for (int t = 0; t < cell.threads; t++) {
+                    int task = t;
+                    Path file = dir.resolve("output_" + t + ".txt");
+                    long submitted = System.nanoTime();
+                    futures.add(executor.submit(() -> {
+                        cell.strategy.write(file, block, copies, payloadBytes, pool);
+                        taskNanos[task] = System.nanoTime() - submitted;
+                        return null;
+                    }));
+                }
+                for (Future<?> f : futures) {
+                    f.get();
+                }
+                if (measured) {
+                    measuredNanos += System.nanoTime() - start;
+                    System.arraycopy(taskNanos, 0, latencies, (i - warmup) * cell.threads, cell.threads);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Arrays.sort(latencies);
+        long bytesPerFile = block == null ? payloadBytes : copies * block.length;
+        double totalMb = (double) bytesPerFile / (1024 * 1024) * cell.threads * iterations;
+        return new Result(cell,
+                LatencyHistogram.percentile(latencies, 0.50),
+                LatencyHistogram.percentile(latencies, 0.99),
+                latencies[latencies.length - 1],
+                totalMb / (measuredNanos / 1e9),
+                gcMillis() - gcMillisBefore,
+                gcCount() - gcCountBefore);
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    /** CSV rows carry the JDK and kernel so files from different hosts can simply be concatenated. */
+    static void writeCsv(Path file, List<Result> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("strategy,payload_mb,threads,buffer_kb,p50_ms,p99_ms,max_ms,mb_per_s,gc_ms,gc_count,jdk,kernel");
+            for (Result r : results) {
+                out.printf(Locale.ROOT, "%s,%d,%d,%d,%.3f,%.3f,%.3f,%.1f,%d,%d,%s,%s%n",
+                        r.cell.strategy, r.cell.payloadMb, r.cell.threads, r.cell.bufferKb,
+                        r.p50Nanos / 1e6, r.p99Nanos / 1e6, r.maxNanos / 1e6, r.mbPerSecond,
+                        r.gcMillis, r.gcCount, System.getProperty("java.version"), System.getProperty("os.version"));
+            }
+        }
+    }
+
+    static void writeJson(Path file, List<Result> results, int warmup, int iterations) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("{");
+            out.printf("  \"jdk\": \"%s\",%n", System.getProperty("java.version"));
+            out.printf("  \"vm\": \"%s\",%n", System.getProperty("java.vm.name"));
+            out.printf("  \"kernel\": \"%s\",%n", System.getProperty("os.version"));
+            out.printf("  \"cpus\": %d,%n", Runtime.getRuntime().availableProcessors());
+            out.printf("  \"warmupIterations\": %d,%n", warmup);
+            out.printf("  \"measuredIterations\": %d,%n", iterations);
+            out.println("  \"results\": [");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                out.printf(Locale.ROOT, "    {\"strategy\": \"%s\", \"payloadMb\": %d, \"threads\": %d, \"bufferKb\": %d, "
+                                + "\"p50Ms\": %.3f, \"p99Ms\": %.3f, \"maxMs\": %.3f, \"mbPerSecond\": %.1f, "
+                                + "\"gcMs\": %d, \"gcCount\": %d}%s%n",
+                        r.cell.strategy, r.cell.payloadMb, r.cell.threads, r.cell.bufferKb,
+                        r.p50Nanos / 1e6, r.p99Nanos / 1e6, r.maxNanos / 1e6, r.mbPerSecond,
+                        r.gcMillis, r.gcCount, i == results.size() - 1 ? "" : ",");
+            }
+            out.println("  ]");
+            out.println("}");
+        }
+    }
+
+    /**
+     * {@code --key=value} pairs with keys from {@code known}; malformed arguments and unknown keys are rejected so
+     * typos such as {@code --threds=8} do not silently use defaults.
+     */
+    static Map<String, String> parse(String[] args, Set<String> known) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("expected --key=value, got " + arg);
+            }
+            String key = arg.substring(2, eq);
+            if (!known.contains(key)) {
+                throw new IllegalArgumentException("unknown option --" + key + ", expected one of " + known);
+            }
+            options.put(key, arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    static long[] longs(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).mapToLong(Long::parseLong).toArray();
+    }
+}
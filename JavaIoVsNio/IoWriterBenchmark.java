@@ -1,15 +1,18 @@
 package JavaIoVsNio;
 
+import metrics.Metrics;
+
 import java.io.*;
+import java.nio.file.Path;
 import java.util.concurrent.*;
 
 public class IoWriterBenchmark {
     public static void main(String[] args) throws Exception {
         ExecutorService executor = Executors.newFixedThreadPool(8);
         Runnable task = () -> {
-            try (FileOutputStream fos = new FileOutputStream("output_io_" + Thread.currentThread().getId() + ".txt")) {
+            try {
                 String data = "Hello World!\n".repeat(1_000_000); // 1 million lines
-                fos.write(data.getBytes());
+                write(Path.of("output_io_" + Thread.currentThread().threadId() + ".txt"), data.getBytes());
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -22,6 +25,27 @@ public class IoWriterBenchmark {
         long end = System.currentTimeMillis();
 
         System.out.println("IO Time: " + (end - start) + " ms");
+        System.out.print(Metrics.snapshot());
+    }
+
+    /**
+     * The classic stream strategy: hand the whole payload to {@link FileOutputStream#write(byte[])}.
+     * Shared with {@link WriterJmhBenchmark} so both measure exactly the same code.
+     */
+    public static void write(Path file, byte[] data) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(file.toFile())) {
+            long start = System.nanoTime();
+            fos.write(data);
+            WriteMetrics.IO.record(start, data.length);
+        }
     }
-}
 
+    /** Same stream strategy with the file opened, forced and timed according to {@code durability}. */
+    public static void write(Path file, byte[] data, Durability durability) throws IOException {
+        try (Durability.Stream out = durability.openStream(file)) {
+            long start = System.nanoTime();
+            out.write(data);
+            WriteMetrics.IO.record(start, data.length);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package JavaIoVsNio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Memory-mapped counterpart of {@link NioWriterBenchmark}: instead of looping on
+ * {@code channel.write(buffer)}, the file is pre-sized and the bytes are copied straight into
+ * {@link MappedByteBuffer} windows obtained from {@link FileChannel#map(FileChannel.MapMode, long, long)}.
+ * <p>
+ * A single mapping is limited to {@link Integer#MAX_VALUE} bytes and pins address space until it is
+ * garbage collected, so outputs larger than {@code windowBytes} are written through a sequence of
+ * fixed-size windows. The payload is repeated {@code copies} times which lets the same 13 MB line
+ * block produce multi-GB files without holding them on the heap.
+ */
+public class MappedWriterBenchmark {
+
+    /** 64 MB windows: large enough to amortise the map syscall, small enough not to exhaust address space. */
+    public static final long DEFAULT_WINDOW_BYTES = 64L * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        byte[] data = "Hello World!\n".repeat(1_000_000).getBytes();
+        Runnable task = () -> {
+            try {
+                write(Path.of("output_mmap_" + Thread.currentThread().threadId() + ".txt"),
+                        data, 1, DEFAULT_WINDOW_BYTES, false);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        };
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 8; i++) executor.submit(task);
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.MINUTES);
+        long end = System.currentTimeMillis();
+
+        System.out.println("MMAP Time: " + (end - start) + " ms");
+    }
+
+    /**
+     * Writes {@code data} repeated {@code copies} times to {@code file} through mapped windows.
+     *
+     * @param windowBytes size of each mapping, the last window is trimmed to the remaining bytes
+     * @param force       when {@code true} every window is {@link MappedByteBuffer#force() forced} before it
+     *                    is released, so the file is durable once this method returns
+     */
+    public static void write(Path file, byte[] data, long copies, long windowBytes, boolean force) throws IOException {
+        if (windowBytes <= 0 || windowBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("windowBytes must be in (0, Integer.MAX_VALUE]: " + windowBytes);
+        }
+        long total = data.length * copies;
+        try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+            // Pre-size once so the kernel does not have to extend the file on every new window.
+            if (total > 0) {
+                channel.write(ByteBuffer.wrap(new byte[1]), total - 1);
+            }
+            int dataOffset = 0;
+            for (long position = 0; position < total; position += windowBytes) {
+                int size = (int) Math.min(windowBytes, total - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+                while (window.hasRemaining()) {
+                    int n = Math.min(window.remaining(), data.length - dataOffset);
+                    window.put(data, dataOffset, n);
+                    dataOffset = (dataOffset + n) % data.length;
+                }
+                if (force) {
+                    window.force();
+                }
+            }
+        }
+    }
+}
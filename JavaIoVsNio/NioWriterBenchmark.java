@@ -1,21 +1,20 @@
 package JavaIoVsNio;
 
+import metrics.Metrics;
+
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.concurrent.*;
 
 public class NioWriterBenchmark {
     public static void main(String[] args) throws Exception {
         ExecutorService executor = Executors.newFixedThreadPool(8);
         Runnable task = () -> {
-            try (FileOutputStream fos = new FileOutputStream("output_nio_" + Thread.currentThread().getId() + ".txt");
-                 FileChannel channel = fos.getChannel()) {
+            try {
                 String data = "Hello World!\n".repeat(1_000_000);
-                ByteBuffer buffer = ByteBuffer.wrap(data.getBytes());
-                while (buffer.hasRemaining()) {
-                    channel.write(buffer);
-                }
+                write(Path.of("output_nio_" + Thread.currentThread().threadId() + ".txt"), data.getBytes());
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -28,6 +27,49 @@ public class NioWriterBenchmark {
         long end = System.currentTimeMillis();
 
         System.out.println("NIO Time: " + (end - start) + " ms");
+        System.out.print(Metrics.snapshot());
+    }
+
+    /**
+     * The channel strategy: wrap the payload in a heap {@link ByteBuffer} and loop on
+     * {@link FileChannel#write(ByteBuffer)} until it is drained.
+     * Shared with {@link WriterJmhBenchmark} so both measure exactly the same code.
+     */
+    public static void write(Path file, byte[] data) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(file.toFile());
+             FileChannel channel = fos.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                long start = System.nanoTime();
+                WriteMetrics.NIO.record(start, channel.write(buffer));
+            }
+        }
     }
-}
 
+    /**
+     * Same channel loop, but the payload is written {@code copies} times so the output can be far
+     * larger than the heap. Used by {@link IoVsNioBenchmark} for payloads past the 2 GB array limit.
+     */
+    public static void write(Path file, byte[] data, long copies) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(file.toFile());
+             FileChannel channel = fos.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            for (long i = 0; i < copies; i++) {
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    long start = System.nanoTime();
+                    WriteMetrics.NIO.record(start, channel.write(buffer));
+                }
+            }
+        }
+    }
+
+    /** Same channel strategy with the file opened, forced and timed according to {@code durability}. */
+    public static void write(Path file, byte[] data, Durability durability) throws IOException {
+        try (Durability.Channel channel = durability.open(file)) {
+            long start = System.nanoTime();
+            channel.write(ByteBuffer.wrap(data));
+            WriteMetrics.NIO.record(start, data.length);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package JavaIoVsNio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * The no-queue alternative to {@link RingAppendLog}: every producer reserves its byte range with
+ * {@link AtomicLong#getAndAdd(long)} and writes it itself with the positional
+ * {@link FileChannel#write(ByteBuffer, long)}, which does not touch the shared channel position.
+ * <p>
+ * There is no writer thread to batch fsyncs, so with {@code forceEachRecord} every producer pays for its
+ * own {@link FileChannel#force(boolean)}.
+ */
+public class PositionalAppendLog implements Appender {
+
+    private final FileChannel channel;
+    private final boolean forceEachRecord;
+    private final AtomicLong offset = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public PositionalAppendLog(Path file, boolean forceEachRecord) throws IOException {
+        this.channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING);
+        this.forceEachRecord = forceEachRecord;
+    }
+
+    @Override
+    public long append(byte[] record) throws IOException {
+        long position = offset.getAndAdd(record.length);
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        if (forceEachRecord) {
+            channel.force(false);
+        }
+        return sequence.getAndIncrement();
+    }
+
+    /** The write (and force) already happened on the caller's thread inside {@link #append(byte[])}. */
+    @Override
+    public void awaitCommitted(long seq) {
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+}
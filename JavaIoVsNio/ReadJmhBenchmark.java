@@ -0,0 +1,97 @@
+package JavaIoVsNio;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH harness for the {@link ReaderBenchmark} read strategies and the {@link TransferBenchmark} copies.
+ * The source file is created once per trial, so every strategy reads from a warm page cache.
+ * <pre>{@code
+ * java -jar target/benchmarks.jar ReadJmhBenchmark -p fileMb=256
+ * }</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadJmhBenchmark {
+
+    @Param({"16", "256"})
+    public int fileMb;
+
+    private Path source;
+    private Path target;
+    private ByteBuffer buffer;
+    private TransferBenchmark.LoopbackSink sink;
+    private SocketChannel socket;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = ReaderBenchmark.createFile(fileMb * 1024L * 1024);
+        target = Files.createTempFile("read-jmh", ".txt");
+        buffer = ByteBuffer.allocateDirect(64 * 1024);
+        sink = new TransferBenchmark.LoopbackSink();
+        socket = sink.connect();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        socket.close();
+        sink.close();
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+    }
+
+    @Benchmark
+    public long readStream() throws IOException {
+        return ReaderBenchmark.readStream(source, 64 * 1024);
+    }
+
+    @Benchmark
+    public long readBuffered() throws IOException {
+        return ReaderBenchmark.readBuffered(source);
+    }
+
+    @Benchmark
+    public long readChannel() throws IOException {
+        return ReaderBenchmark.readChannel(source, buffer);
+    }
+
+    @Benchmark
+    public long readMapped() throws IOException {
+        return ReaderBenchmark.readMapped(source, MappedWriterBenchmark.DEFAULT_WINDOW_BYTES);
+    }
+
+    @Benchmark
+    public long fileCopyLoop() throws IOException {
+        return TransferBenchmark.copyLoop(source, target, buffer);
+    }
+
+    @Benchmark
+    public long fileTransferTo() throws IOException {
+        return TransferBenchmark.transferTo(source, target);
+    }
+
+    @Benchmark
+    public long fileTransferFrom() throws IOException {
+        return TransferBenchmark.transferFrom(source, target);
+    }
+
+    @Benchmark
+    public long socketCopyLoop() throws IOException {
+        return TransferBenchmark.copyLoop(source, socket, buffer);
+    }
+
+    @Benchmark
+    public long socketTransferTo() throws IOException {
+        return TransferBenchmark.transferTo(source, socket);
+    }
+}
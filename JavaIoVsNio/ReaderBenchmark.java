@@ -0,0 +1,127 @@
+package JavaIoVsNio;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Read-side counterpart of the writer benchmarks. Every strategy scans the whole file and counts
+ * {@code '\n'} bytes, so each one touches every byte (and the JIT cannot drop the read) while doing the
+ * same trivial amount of work per byte.
+ * <ul>
+ *   <li>{@link #readStream} – {@link FileInputStream#read(byte[])} into a caller-sized array.</li>
+ *   <li>{@link #readBuffered} – {@link BufferedInputStream} with its default 8 KB buffer, one byte at a time.</li>
+ *   <li>{@link #readChannel} – {@link FileChannel#read(ByteBuffer)} into a direct buffer.</li>
+ *   <li>{@link #readMapped} – {@link MappedByteBuffer} windows, no read syscalls at all.</li>
+ * </ul>
+ * <b>Run command:</b>
+ * <pre>{@code
+ * java JavaIoVsNio.ReaderBenchmark 512    # MB
+ * }</pre>
+ * The file is written once and then read from the page cache; drop caches between runs
+ * ({@code echo 3 > /proc/sys/vm/drop_caches}) to measure the cold path.
+ */
+public class ReaderBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long bytes = (args.length > 0 ? Long.parseLong(args[0]) : 256) * 1024 * 1024;
+        Path file = createFile(bytes);
+        try {
+            for (int round = 0; round < 3; round++) {
+                time("stream(64K)", bytes, () -> readStream(file, 64 * 1024));
+                time("buffered", bytes, () -> readBuffered(file));
+                time("channel(direct 64K)", bytes, () -> readChannel(file, ByteBuffer.allocateDirect(64 * 1024)));
+                time("mapped", bytes, () -> readMapped(file, MappedWriterBenchmark.DEFAULT_WINDOW_BYTES));
+                System.out.println();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Writes a temp file of {@code bytes} repeated lines with the streaming NIO writer. */
+    public static Path createFile(long bytes) throws IOException {
+        Path file = Files.createTempFile("reader", ".txt");
+        StreamingWriterBenchmark.writeNio(file, StreamingWriterBenchmark.LINE, bytes, new DirectBufferPool(64 * 1024, 1));
+        return file;
+    }
+
+    static void time(String name, long bytes, ReadTask task) throws IOException {
+        long start = System.nanoTime();
+        long result = task.read();
+        long elapsedNanos = System.nanoTime() - start;
+        System.out.printf("%-22s %6d ms  %8.1f MB/s  (result %d)%n",
+                name, elapsedNanos / 1_000_000, bytes / 1048576.0 / (elapsedNanos / 1e9), result);
+    }
+
+    public static long readStream(Path file, int bufferSize) throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        long lines = 0;
+        try (FileInputStream in = new FileInputStream(file.toFile())) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '\n') lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    public static long readBuffered(Path file) throws IOException {
+        long lines = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file.toFile()))) {
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') lines++;
+            }
+        }
+        return lines;
+    }
+
+    public static long readChannel(Path file, ByteBuffer buffer) throws IOException {
+        long lines = 0;
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            while (true) {
+                buffer.clear();
+                if (channel.read(buffer) == -1) {
+                    break;
+                }
+                buffer.flip();
+                int limit = buffer.limit();
+                for (int i = 0; i < limit; i++) {
+                    if (buffer.get(i) == '\n') lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    public static long readMapped(Path file, long windowBytes) throws IOException {
+        long lines = 0;
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += windowBytes) {
+                int length = (int) Math.min(windowBytes, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                for (int i = 0; i < length; i++) {
+                    if (window.get(i) == '\n') lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    @FunctionalInterface
+    interface ReadTask {
+        long read() throws IOException;
+    }
+}
@@ -0,0 +1,193 @@
+package JavaIoVsNio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Single-file append log fed by many producer threads.
+ * <p>
+ * Producers claim a sequence number on a lock-free multi-producer ring ({@link AtomicLong#getAndIncrement()}),
+ * drop their record into the slot and publish it. One writer thread drains whatever is published in order,
+ * writes the batch with a gathering {@link FileChannel#write(ByteBuffer[], int, int)} and, when
+ * {@code groupCommit} is on, calls {@link FileChannel#force(boolean)} once for the whole batch. A producer that
+ * needs durability calls {@link #awaitCommitted(long)}; while it waits, others keep filling the next batch, so
+ * one fsync ends up covering many records.
+ */
+public class RingAppendLog implements Appender {
+
+    private static final long IDLE_PARK_NANOS = 20_000;
+    /** Written in place of a record whose producer found the log closed after claiming its sequence. */
+    private static final ByteBuffer TOMBSTONE = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    private final boolean groupCommit;
+    private final int mask;
+    private final byte[][] slots;
+    /** {@code published[i] == seq} means slot {@code i} holds the record for {@code seq}. */
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final ByteBuffer[] batch;
+    private final Thread writer;
+
+    /** Next sequence the writer will consume; producers may not lap it. */
+    private volatile long consumed;
+    /** Highest sequence written (and forced, with group commit); -1 before the first batch. */
+    private volatile long committed = -1;
+    private volatile boolean closed;
+    /** Whatever stopped the writer thread: an I/O error, or any other exception or error. */
+    private volatile Throwable failure;
+
+    private long batches;
+    private long forces;
+
+    /**
+     * @param capacity ring size, rounded up to a power of two
+     * @param maxBatch upper bound on records per gathering write / group commit
+     */
+    public RingAppendLog(Path file, int capacity, int maxBatch, boolean groupCommit) throws IOException {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING);
+        this.groupCommit = groupCommit;
+        this.mask = size - 1;
+        this.slots = new byte[size][];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.batch = new ByteBuffer[Math.min(maxBatch, size)];
+        this.writer = new Thread(this::drainLoop, "ring-append-writer");
+        this.writer.start();
+    }
+
+    /**
+     * Enqueues {@code record} and returns its sequence number. Spins while the ring is full.
+     * The record array must not be modified afterwards.
+     * <p>
+     * {@link #close()} may run between {@link #checkOpen()} and the claim. The writer only stops once every
+     * claimed sequence is consumed, so a claim it saw is always drained; {@code closed} is read again after the
+     * claim, and if it is set the writer may already be gone. The slot is then published empty so the sequence
+     * does not block the writer, and the append fails instead of being dropped silently.
+     */
+    @Override
+    public long append(byte[] record) throws IOException {
+        checkOpen();
+        long seq = claimed.getAndIncrement();
+        while (seq - consumed >= slots.length) {
+            checkWriter();
+            Thread.onSpinWait();
+        }
+        int index = (int) (seq & mask);
+        if (closed) {
+            slots[index] = null;
+            published.setRelease(index, seq);
+            throw new IOException("append log is closed");
+        }
+        slots[index] = record;
+        published.setRelease(index, seq);
+        return seq;
+    }
+
+    /** Blocks until {@code seq} is written, and forced to disk when group commit is on. */
+    @Override
+    public void awaitCommitted(long seq) throws IOException {
+        while (committed < seq) {
+            if (closed && !writer.isAlive() && failure == null) {
+                throw new IOException("append log closed before sequence " + seq + " was committed");
+            }
+            checkWriter();
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    public long batches() {
+        return batches;
+    }
+
+    public long forces() {
+        return forces;
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw new IOException("append log writer failed", failure);
+        }
+        if (closed) {
+            throw new IOException("append log is closed");
+        }
+    }
+
+    /** Fails fast once the writer has failed or is gone, instead of waiting for it forever. */
+    private void checkWriter() throws IOException {
+        Throwable e = failure;
+        if (e != null) {
+            throw new IOException("append log writer failed", e);
+        }
+        if (!writer.isAlive()) {
+            throw new IOException("append log writer has stopped");
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            while (true) {
+                int n = collectBatch();
+                if (n == 0) {
+                    if (closed && consumed == claimed.get()) {
+                        break;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                GatherWriterBenchmark.writeFully(channel, batch, 0, n);
+                batches++;
+                if (groupCommit) {
+                    channel.force(false);
+                    forces++;
+                }
+                consumed += n;
+                committed = consumed - 1;
+            }
+            channel.force(false);
+        } catch (Throwable e) {
+            failure = e; // anything else would leave producers and awaitCommitted waiting for a dead writer
+        }
+    }
+
+    /** Gathers the contiguous run of published records starting at {@link #consumed}. */
+    private int collectBatch() {
+        long next = consumed;
+        int n = 0;
+        while (n < batch.length) {
+            int index = (int) ((next + n) & mask);
+            if (published.getAcquire(index) != next + n) {
+                break;
+            }
+            byte[] record = slots[index];
+            batch[n++] = record == null ? TOMBSTONE : ByteBuffer.wrap(record);
+            slots[index] = null;
+        }
+        return n;
+    }
+
+    /** Stops accepting records, waits for the writer to drain and force everything, then closes the file. */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw new IOException("append log writer failed", failure);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package JavaIoVsNio;
+
+import metrics.Metrics;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Bounded-memory variants of {@link IoWriterBenchmark} and {@link NioWriterBenchmark}.
+ * <p>
+ * The original tasks build {@code "Hello World!\n".repeat(1_000_000)} and call {@code getBytes()}, i.e.
+ * about 26 MB of garbage per task before a single byte reaches the file. Here the payload is generated
+ * chunk by chunk into a pooled direct {@link ByteBuffer} and each chunk is written as soon as it fills,
+ * so a writer never holds more than one buffer no matter how large the output is.
+ * <p>
+ * <b>Run command:</b>
+ * <pre>{@code
+ * java -Xmx32m JavaIoVsNio.StreamingWriterBenchmark 2048    # 2 GB per file on a 32 MB heap
+ * }</pre>
+ */
+public class StreamingWriterBenchmark {
+
+    public static final byte[] LINE = "Hello World!\n".getBytes();
+
+    /** {@link #writeIo}'s copy buffer, kept per thread so repeated tasks on a pool thread do not reallocate it. */
+    private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<>();
+
+    public static void main(String[] args) throws Exception {
+        long bytesPerFile = (args.length > 0 ? Long.parseLong(args[0]) : 13) * 1024 * 1024;
+        DirectBufferPool pool = new DirectBufferPool(64 * 1024, 8);
+
+        long ioMs = run("io", pool, file -> writeIo(file, LINE, bytesPerFile, pool));
+        long nioMs = run("nio", pool, file -> writeNio(file, LINE, bytesPerFile, pool));
+
+        System.out.println("Streaming IO Time: " + ioMs + " ms");
+        System.out.println("Streaming NIO Time: " + nioMs + " ms");
+        System.out.println("Direct buffers allocated: " + pool.allocatedCount());
+        System.out.print(Metrics.snapshot());
+    }
+
+    private static long run(String name, DirectBufferPool pool, FileTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Runnable runnable = () -> {
+            try {
+                task.write(Path.of("output_stream_" + name + "_" + Thread.currentThread().threadId() + ".txt"));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        };
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 8; i++) executor.submit(runnable);
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.MINUTES);
+        return System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Streams {@code totalBytes} of the repeated {@code pattern} through a {@link FileChannel}, one pooled
+     * direct buffer at a time. Direct buffers let the channel hand the memory to the kernel without the
+     * extra copy into a temporary native buffer that a heap buffer would need.
+     */
+    public static void writeNio(Path file, byte[] pattern, long totalBytes, DirectBufferPool pool) throws IOException {
+        ByteBuffer buffer = pool.acquire();
+        try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            long written = 0;
+            while (written < totalBytes) {
+                buffer.clear();
+                fill(buffer, pattern, written, totalBytes - written);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    long start = System.nanoTime();
+                    int n = channel.write(buffer);
+                    WriteMetrics.STREAM_NIO.record(start, n);
+                    written += n;
+                }
+            }
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /** {@link #writeNio} with the file opened, forced and timed according to {@code durability}. */
+    public static void writeNio(Path file, byte[] pattern, long totalBytes, DirectBufferPool pool,
+                                Durability durability) throws IOException {
+        ByteBuffer buffer = pool.acquire();
+        try (Durability.Channel channel = durability.open(file)) {
+            long written = 0;
+            while (written < totalBytes) {
+                buffer.clear();
+                fill(buffer, pattern, written, totalBytes - written);
+                buffer.flip();
+                int n = buffer.remaining();
+                long start = System.nanoTime();
+                channel.write(buffer);
+                WriteMetrics.STREAM_NIO.record(start, n);
+                written += n;
+            }
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * Stream counterpart of {@link #writeNio}. {@link FileOutputStream} only accepts arrays, so each filled
+     * chunk is copied into one scratch array sized like the pooled buffer. The array is reused by every call on
+     * the same thread, so the IO path allocates no more per task than the NIO one.
+     */
+    public static void writeIo(Path file, byte[] pattern, long totalBytes, DirectBufferPool pool) throws IOException {
+        ByteBuffer buffer = pool.acquire();
+        byte[] scratch = scratch(buffer.capacity());
+        try (FileOutputStream fos = new FileOutputStream(file.toFile())) {
+            long written = 0;
+            while (written < totalBytes) {
+                buffer.clear();
+                fill(buffer, pattern, written, totalBytes - written);
+                buffer.flip();
+                int n = buffer.remaining();
+                buffer.get(scratch, 0, n);
+                long start = System.nanoTime();
+                fos.write(scratch, 0, n);
+                WriteMetrics.STREAM_IO.record(start, n);
+                written += n;
+            }
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /** {@link #writeIo} with the file opened, forced and timed according to {@code durability}. */
+    public static void writeIo(Path file, byte[] pattern, long totalBytes, DirectBufferPool pool,
+                               Durability durability) throws IOException {
+        ByteBuffer buffer = pool.acquire();
+        byte[] scratch = scratch(buffer.capacity());
+        try (Durability.Stream out = durability.openStream(file)) {
+            long written = 0;
+            while (written < totalBytes) {
+                buffer.clear();
+                fill(buffer, pattern, written, totalBytes - written);
+                buffer.flip();
+                int n = buffer.remaining();
+                buffer.get(scratch, 0, n);
+                long start = System.nanoTime();
+                out.write(scratch, 0, n);
+                WriteMetrics.STREAM_IO.record(start, n);
+                written += n;
+            }
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    private static byte[] scratch(int size) {
+        byte[] scratch = SCRATCH.get();
+        if (scratch == null || scratch.length != size) {
+            scratch = new byte[size];
+            SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+
+    /**
+     * Fills {@code buffer} with {@code pattern} as if the pattern were repeated from stream offset
+     * {@code offset}, writing at most {@code limit} bytes.
+     */
+    static void fill(ByteBuffer buffer, byte[] pattern, long offset, long limit) {
+        int patternOffset = (int) (offset % pattern.length);
+        long remaining = Math.min(limit, buffer.remaining());
+        while (remaining > 0) {
+            int n = (int) Math.min(remaining, pattern.length - patternOffset);
+            buffer.put(pattern, patternOffset, n);
+            remaining -= n;
+            patternOffset = 0;
+        }
+    }
+}
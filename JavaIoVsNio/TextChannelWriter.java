@@ -0,0 +1,215 @@
+package JavaIoVsNio;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Objects;
+
+/**
+ * Writes text to a channel without turning it into a {@code byte[]} first.
+ * <p>
+ * {@code data.getBytes()} in {@link IoWriterBenchmark} and {@link NioWriterBenchmark} allocates a fresh array
+ * as large as the text, and {@code getBytes()} per line allocates one per line. Here {@link CharSequence}s are
+ * appended into a reused {@code char[]} of {@value #CHUNK} chars ({@link String#getChars} is an array copy), and
+ * every full chunk is encoded into a reused {@code byte[]} and copied in bulk into one reused direct
+ * {@link ByteBuffer}, typically borrowed from a {@link DirectBufferPool}, which is drained to the channel whenever
+ * it fills. Encoding a whole chunk at a time keeps the per-{@code append} cost to the copy, however short the
+ * strings are.
+ * <p>
+ * There is no hand-written ASCII/Latin-1 fast path in front of the encoder: on JDK 21 C2 does not vectorize a
+ * {@code char[]} to {@code byte[]} narrowing loop, which measured ten times slower per chunk than the encoder
+ * itself. For US-ASCII, ISO-8859-1 and UTF-8 the JDK encoders already run such chars through intrinsics
+ * ({@code encodeASCII}, {@code encodeISOArray}) when both sides are arrays, so the cached encoder, fed
+ * array to array a whole chunk at a time, <i>is</i> the fast path; other chars and charsets go through the
+ * same call. Malformed and unmappable input is replaced, like {@code getBytes()} does.
+ * <p>
+ * Once warm, appending allocates nothing. The writer can be {@link #open opened} on one channel after another,
+ * so a thread writing many files keeps its encoder and buffers:
+ * <pre>{@code
+ * ByteBuffer buffer = pool.acquire();
+ * TextChannelWriter writer = new TextChannelWriter(StandardCharsets.UTF_8, buffer);
+ * try (TextChannelWriter out = writer.open(FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING))) {
+ *     out.append("cpu{host=\"h1\"} ").append(Long.toString(value)).append('\n');
+ * } finally {
+ *     pool.release(buffer);
+ * }
+ * }</pre>
+ * Not thread-safe; one writer per thread.
+ */
+public class TextChannelWriter implements Appendable, Flushable, Closeable {
+
+    /** Chars buffered before encoding, and bytes staged per encoder call. */
+    static final int CHUNK = 8192;
+
+    private final Charset charset;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer buffer;
+    private final char[] chars = new char[CHUNK];
+    private final byte[] bytes = new byte[CHUNK];
+    private final CharBuffer charView = CharBuffer.wrap(chars);
+    private final ByteBuffer byteView = ByteBuffer.wrap(bytes);
+    /** Chars in {@link #chars} not encoded yet. */
+    private int count;
+    private WritableByteChannel channel;
+
+    public TextChannelWriter(Charset charset, ByteBuffer buffer) {
+        if (buffer.capacity() < 16) {
+            throw new IllegalArgumentException("buffer too small to hold an encoded char");
+        }
+        this.charset = charset;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = buffer.clear();
+    }
+
+    /** Starts writing to {@code channel}; the previous one must have been {@link #close() closed}. */
+    public TextChannelWriter open(WritableByteChannel channel) {
+        if (this.channel != null) {
+            throw new IllegalStateException("writer is still open on another channel");
+        }
+        this.channel = channel;
+        return this;
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    /** Appends {@code text}, or {@code "null"} when it is null, as {@link Appendable} requires. */
+    @Override
+    public TextChannelWriter append(CharSequence text) throws IOException {
+        if (text == null) {
+            text = "null";
+        }
+        return append(text, 0, text.length());
+    }
+
+    /** Appends {@code text[start, end)}; a null {@code text} counts as {@code "null"}. */
+    @Override
+    public TextChannelWriter append(CharSequence text, int start, int end) throws IOException {
+        if (text == null) {
+            text = "null";
+        }
+        Objects.checkFromToIndex(start, end, text.length());
+        ensureOpen();
+        while (start < end) {
+            int n = Math.min(end - start, CHUNK - count);
+            getChars(text, start, start + n, count);
+            start += n;
+            count += n;
+            if (count == CHUNK) {
+                encode(false);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public TextChannelWriter append(char c) throws IOException {
+        ensureOpen();
+        chars[count++] = c;
+        if (count == CHUNK) {
+            encode(false);
+        }
+        return this;
+    }
+
+    private void getChars(CharSequence text, int start, int end, int offset) {
+        if (text instanceof String s) {
+            s.getChars(start, end, chars, offset);
+        } else if (text instanceof StringBuilder sb) {
+            sb.getChars(start, end, chars, offset);
+        } else {
+            for (int i = start; i < end; i++) {
+                chars[offset++] = text.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Runs the buffered chars through the encoder. Without {@code endOfInput} it may leave a trailing high
+     * surrogate whose low half has not been appended yet; that char is moved to the front for the next chunk.
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        charView.limit(count).position(0);
+        CoderResult result;
+        do {
+            byteView.clear();
+            result = encoder.encode(charView, byteView, endOfInput);
+            put(byteView.position());
+        } while (result.isOverflow());
+        count = charView.remaining();
+        if (count > 0) {
+            System.arraycopy(chars, charView.position(), chars, 0, count);
+        }
+    }
+
+    /** Copies {@code bytes[0, length)} into the direct buffer, draining it whenever it fills. */
+    private void put(int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(length - offset, buffer.remaining());
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    /** Writes everything appended so far to the channel, except a high surrogate still waiting for its pair. */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        encode(false);
+        drain();
+    }
+
+    /** Ends the text (a trailing unpaired surrogate becomes the replacement), writes it out and closes the channel. */
+    @Override
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            encode(true);
+            CoderResult result;
+            do {
+                byteView.clear();
+                result = encoder.flush(byteView);
+                put(byteView.position());
+            } while (result.isOverflow());
+            drain();
+        } finally {
+            encoder.reset();
+            count = 0;
+            buffer.clear();
+            WritableByteChannel closing = channel;
+            channel = null;
+            closing.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            long start = System.nanoTime();
+            WriteMetrics.TEXT.record(start, channel.write(buffer));
+        }
+        buffer.clear();
+    }
+
+    private void ensureOpen() {
+        if (channel == null) {
+            throw new IllegalStateException("writer is not open on a channel");
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package JavaIoVsNio;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * What turning text into bytes costs the writers, per way of doing it.
+ * <p>
+ * Each operation writes {@code payloadLines} exporter-style lines to one file:
+ * <ul>
+ *   <li><b>getBytesPayload</b> – what {@link IoWriterBenchmark} does: join the text, {@code getBytes()} it and write
+ *       the array.</li>
+ *   <li><b>getBytesLines</b> – {@code line.getBytes(charset)} per line into a {@link BufferedOutputStream}.</li>
+ *   <li><b>bufferedWriter</b> – {@link BufferedWriter} over {@link OutputStreamWriter} over a
+ *       {@link BufferedOutputStream}. The writer's encoder flushes at most 8 KB at a time on JDK 21, so without the
+ *       stream buffer it would make eight times the syscalls of the others.</li>
+ *   <li><b>channelWriter</b> – {@link TextChannelWriter}: a reused encoder and direct buffer over a {@link FileChannel}.</li>
+ * </ul>
+ * The last three write 64 KB at a time, so the syscalls match and the difference is the encoding. {@code content}
+ * picks the text: {@code ascii} (the encoders' intrinsic single-byte loop for every charset here), {@code latin1}
+ * (that loop only for ISO-8859-1; UTF-8 drops out of it at every accented char) and {@code mixed} (CJK, {@code €}
+ * and a surrogate pair on each line; the chars ISO-8859-1 cannot map become {@code ?}). With {@code sink=discard}
+ * the bytes go to a stream/channel that drops them, which takes the file system – and most of the run-to-run
+ * noise – out of the comparison.
+ * <p>
+ * <b>Run (GC profiler attached; {@code main} also prints bytes allocated per MB written):</b>
+ * <pre>{@code
+ * mvn -B package
+ * java -cp target/benchmarks.jar JavaIoVsNio.TextEncodingBenchmark
+ * # or: java -jar target/benchmarks.jar TextEncodingBenchmark -prof gc -p charset=UTF-8
+ * }</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class TextEncodingBenchmark {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    @Param({"100000"})
+    public int payloadLines;
+
+    @Param({"UTF-8", "ISO-8859-1"})
+    public String charset;
+
+    @Param({"ascii", "latin1", "mixed"})
+    public String content;
+
+    /** {@code file}: a real file, truncated by every operation; {@code discard}: encoding cost only. */
+    @Param({"file", "discard"})
+    public String sink;
+
+    private Charset cs;
+    private List<String> lines;
+    private String payload;
+    private DirectBufferPool pool;
+    private ByteBuffer buffer;
+    private TextChannelWriter writer;
+    private Path dir;
+    private Path file;
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(TextEncodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        printAllocationPerMb(new Runner(options).run());
+    }
+
+    /** {@code gc.alloc.rate.norm} is bytes per operation; divide by the MB each operation writes. */
+    static void printAllocationPerMb(Collection<RunResult> results) {
+        System.out.printf("%n%-16s %-11s %-7s %-8s %12s %12s %16s%n", "benchmark", "charset", "content", "sink",
+                "ops/s", "MB/s", "alloc B/MB");
+        for (RunResult result : results) {
+            String name = result.getParams().getBenchmark();
+            Charset cs = Charset.forName(result.getParams().getParam("charset"));
+            String content = result.getParams().getParam("content");
+            int count = Integer.parseInt(result.getParams().getParam("payloadLines"));
+            double mb = String.join("", lines(content, count)).getBytes(cs).length / (1024.0 * 1024.0);
+            double ops = result.getPrimaryResult().getScore();
+            Result<?> norm = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            System.out.printf("%-16s %-11s %-7s %-8s %,12.2f %,12.1f %,16.0f%n", name.substring(name.lastIndexOf('.') + 1),
+                    cs.name(), content, result.getParams().getParam("sink"), ops, ops * mb,
+                    norm == null ? Double.NaN : norm.getScore() / mb);
+        }
+    }
+
+    /** {@code count} metrics-exporter lines of the given {@code content} kind, each ending in a newline. */
+    static List<String> lines(String content, int count) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(switch (content) {
+                case "ascii" -> "cpu_usage{host=\"node-" + i % 97 + "\",core=\"" + i % 16 + "\"} " + i % 1000 + "." + i % 100
+                        + " 1700000" + i + "\n";
+                case "latin1" -> "température{hôte=\"serveur-" + i % 97 + "\",région=\"Zürich\"} " + i % 1000 + "." + i % 100
+                        + " 1700000" + i + "\n";
+                case "mixed" -> "延迟{主机=\"节点-" + i % 97 + "\",cost=\"€\",tag=\"🚀\"} " + i % 1000 + "." + i % 100
+                        + " 1700000" + i + "\n";
+                default -> throw new IllegalArgumentException("unknown content: " + content);
+            });
+        }
+        return lines;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        cs = Charset.forName(charset);
+        lines = lines(content, payloadLines);
+        payload = String.join("", lines);
+        pool = new DirectBufferPool(BUFFER_SIZE, 1);
+        buffer = pool.acquire();
+        writer = new TextChannelWriter(cs, buffer);
+        dir = Files.createTempDirectory("text-jmh");
+        file = dir.resolve("output.txt");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.release(buffer);
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public void getBytesPayload() throws IOException {
+        try (OutputStream out = openStream()) {
+            out.write(payload.getBytes(cs));
+        }
+    }
+
+    @Benchmark
+    public void getBytesLines() throws IOException {
+        try (OutputStream out = new BufferedOutputStream(openStream(), BUFFER_SIZE)) {
+            for (String line : lines) {
+                out.write(line.getBytes(cs));
+            }
+        }
+    }
+
+    @Benchmark
+    public void bufferedWriter() throws IOException {
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(new BufferedOutputStream(openStream(), BUFFER_SIZE), cs), BUFFER_SIZE)) {
+            for (String line : lines) {
+                out.write(line);
+            }
+        }
+    }
+
+    @Benchmark
+    public void channelWriter() throws IOException {
+        try (TextChannelWriter out = writer.open(openChannel())) {
+            for (String line : lines) {
+                out.append(line);
+            }
+        }
+    }
+
+    private OutputStream openStream() throws IOException {
+        return sink.equals("file") ? new FileOutputStream(file.toFile()) : OutputStream.nullOutputStream();
+    }
+
+    private WritableByteChannel openChannel() throws IOException {
+        return sink.equals("file") ? FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING) : DISCARD;
+    }
+
+    /** Accepts and drops everything; unlike {@code Channels.newChannel(nullOutputStream())} it copies nothing. */
+    private static final WritableByteChannel DISCARD = new WritableByteChannel() {
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+}
@@ -0,0 +1,166 @@
+package JavaIoVsNio;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Zero-copy versus user-space copy for shipping a file somewhere else.
+ * <p>
+ * The copy loop reads every chunk into a direct buffer and writes it out again, so each byte crosses the
+ * user/kernel boundary twice. {@link FileChannel#transferTo} and {@link FileChannel#transferFrom} let the
+ * kernel move the pages itself ({@code sendfile(2)} / {@code copy_file_range(2)} on Linux); the JVM never
+ * sees the data. Both are measured file-to-file and file-to-socket, the socket being a loopback
+ * connection drained by a {@link LoopbackSink}.
+ * <p>
+ * <b>Run command:</b>
+ * <pre>{@code
+ * java JavaIoVsNio.TransferBenchmark 512    # MB
+ * }</pre>
+ */
+public class TransferBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long bytes = (args.length > 0 ? Long.parseLong(args[0]) : 256) * 1024 * 1024;
+        Path source = ReaderBenchmark.createFile(bytes);
+        Path target = Files.createTempFile("transfer", ".txt");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+        try (LoopbackSink sink = new LoopbackSink()) {
+            for (int round = 0; round < 3; round++) {
+                ReaderBenchmark.time("file copy loop", bytes, () -> copyLoop(source, target, buffer));
+                ReaderBenchmark.time("file transferTo", bytes, () -> transferTo(source, target));
+                ReaderBenchmark.time("file transferFrom", bytes, () -> transferFrom(source, target));
+                try (SocketChannel socket = sink.connect()) {
+                    ReaderBenchmark.time("socket copy loop", bytes, () -> copyLoop(source, socket, buffer));
+                    ReaderBenchmark.time("socket transferTo", bytes, () -> transferTo(source, socket));
+                }
+                System.out.println();
+            }
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(target);
+        }
+    }
+
+    /** User-space copy of {@code source} into {@code target}; returns bytes copied. */
+    public static long copyLoop(Path source, Path target, ByteBuffer buffer) throws IOException {
+        try (FileChannel out = FileChannel.open(target, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            return copyLoop(source, out, buffer);
+        }
+    }
+
+    public static long copyLoop(Path source, WritableByteChannel target, ByteBuffer buffer) throws IOException {
+        long copied = 0;
+        try (FileChannel in = FileChannel.open(source, READ)) {
+            while (true) {
+                buffer.clear();
+                if (in.read(buffer) == -1) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    copied += target.write(buffer);
+                }
+            }
+        }
+        return copied;
+    }
+
+    public static long transferTo(Path source, Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            return transferTo(source, out);
+        }
+    }
+
+    /** {@link FileChannel#transferTo} may move fewer bytes than asked, so loop until the file is done. */
+    public static long transferTo(Path source, WritableByteChannel target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, READ)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, target);
+            }
+            return position;
+        }
+    }
+
+    public static long transferFrom(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, READ);
+             FileChannel out = FileChannel.open(target, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += out.transferFrom(in, position, size - position);
+            }
+            return position;
+        }
+    }
+
+    /**
+     * A loopback server that accepts connections and discards everything it receives, standing in for the
+     * downstream service a file would be shipped to.
+     */
+    public static class LoopbackSink implements AutoCloseable {
+
+        private final ServerSocketChannel server;
+        private final Thread acceptor;
+        private final AtomicLong received = new AtomicLong();
+
+        public LoopbackSink() throws IOException {
+            server = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            acceptor = new Thread(this::acceptLoop, "loopback-sink");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        public SocketChannel connect() throws IOException {
+            return SocketChannel.open(server.getLocalAddress());
+        }
+
+        public long received() {
+            return received.get();
+        }
+
+        private void acceptLoop() {
+            while (server.isOpen()) {
+                try {
+                    SocketChannel client = server.accept();
+                    Thread drain = new Thread(() -> drain(client), "loopback-sink-drain");
+                    drain.setDaemon(true);
+                    drain.start();
+                } catch (IOException e) {
+                    return; // server closed
+                }
+            }
+        }
+
+        private void drain(SocketChannel client) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+            try (client) {
+                int n;
+                while ((n = client.read(buffer)) != -1) {
+                    received.addAndGet(n);
+                    buffer.clear();
+                }
+            } catch (IOException ignored) {
+                // peer reset; nothing to report for a sink
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
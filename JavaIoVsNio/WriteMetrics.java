@@ -0,0 +1,33 @@
+package JavaIoVsNio;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+/**
+ * Per-write latency ({@code javaio.<strategy>.write.nanos}) and bytes ({@code javaio.<strategy>.write.bytes})
+ * for the writer strategies, published through {@link Metrics}. One {@code nanoTime} pair, one histogram record
+ * and one counter add per {@code write} call – against writes of kilobytes to megabytes.
+ */
+final class WriteMetrics {
+
+    static final WriteMetrics IO = new WriteMetrics("io");
+    static final WriteMetrics NIO = new WriteMetrics("nio");
+    static final WriteMetrics STREAM_IO = new WriteMetrics("stream_io");
+    static final WriteMetrics STREAM_NIO = new WriteMetrics("stream_nio");
+    static final WriteMetrics TEXT = new WriteMetrics("text");
+
+    private final LatencyHistogram nanos;
+    private final Counter bytes;
+
+    private WriteMetrics(String strategy) {
+        this.nanos = Metrics.histogram("javaio." + strategy + ".write.nanos");
+        this.bytes = Metrics.counter("javaio." + strategy + ".write.bytes");
+    }
+
+    /** Records one write of {@code written} bytes that started at {@code startNanos} ({@link System#nanoTime()}). */
+    void record(long startNanos, long written) {
+        nanos.record(System.nanoTime() - startNanos);
+        bytes.add(written);
+    }
+}
@@ -0,0 +1,162 @@
+package JavaIoVsNio;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * JMH harness for the {@link IoWriterBenchmark}, {@link NioWriterBenchmark} and {@link MappedWriterBenchmark}
+ * write strategies.
+ * <p>
+ * The hand-rolled {@code main} methods time one cold run with {@code System.currentTimeMillis()}, so
+ * they mostly measure class loading, the interpreter and allocating the payload. Here the payload is
+ * built once per trial, the JIT is warmed up, every configuration runs in fresh forks, and each
+ * invocation does what one {@code main} run does: {@code threads} tasks each writing their own file.
+ * <p>
+ * <b>Build and run:</b>
+ * <pre>{@code
+ * mvn -B package
+ * java -jar target/benchmarks.jar WriterJmhBenchmark
+ * java -jar target/benchmarks.jar WriterJmhBenchmark -p threads=8 -p payloadLines=1000000
+ * }</pre>
+ * Both throughput (ops/s, one op = all threads finished their file) and average time are reported.
+ * The {@code streaming*} variants generate the same bytes through pooled direct buffers instead of the
+ * pre-built array; add {@code -prof gc} to see the allocation difference. The {@code records*} variants
+ * write {@code payloadLines} small records one syscall at a time versus in gathering batches.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class WriterJmhBenchmark {
+
+    /** Lines of {@code "Hello World!\n"} per file; 1_000_000 is the 13 MB payload the mains write. */
+    @Param({"10000", "100000", "1000000"})
+    public int payloadLines;
+
+    /** Concurrent writers per invocation, each with its own output file. */
+    @Param({"1", "4", "8"})
+    public int threads;
+
+    private byte[] payload;
+    private DirectBufferPool pool;
+    private ByteBuffer[][] records;
+    private ExecutorService executor;
+    private ExecutorService virtualExecutor;
+    private Path dir;
+    private List<Path> files;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        payload = "Hello World!\n".repeat(payloadLines).getBytes(StandardCharsets.UTF_8);
+        pool = new DirectBufferPool(64 * 1024, threads);
+        executor = Executors.newFixedThreadPool(threads);
+        virtualExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        dir = Files.createTempDirectory("writer-jmh");
+        files = new ArrayList<>(threads);
+        records = new ByteBuffer[threads][];
+        for (int i = 0; i < threads; i++) {
+            files.add(dir.resolve("output_" + i + ".txt"));
+            records[i] = GatherWriterBenchmark.records(payloadLines);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        virtualExecutor.shutdownNow();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public void io() throws Exception {
+        runAll(file -> IoWriterBenchmark.write(file, payload));
+    }
+
+    @Benchmark
+    public void nio() throws Exception {
+        runAll(file -> NioWriterBenchmark.write(file, payload));
+    }
+
+    @Benchmark
+    public void nioVirtual() throws Exception {
+        AsyncWriterBenchmark.writeAll(virtualExecutor, files, payload);
+    }
+
+    @Benchmark
+    public void nioAsync() throws Exception {
+        AsyncWriterBenchmark.writeAllAsync(files, payload, threads);
+    }
+
+    @Benchmark
+    public void mmap() throws Exception {
+        runAll(file -> MappedWriterBenchmark.write(file, payload, 1, MappedWriterBenchmark.DEFAULT_WINDOW_BYTES, false));
+    }
+
+    @Benchmark
+    public void streamingIo() throws Exception {
+        runAll(file -> StreamingWriterBenchmark.writeIo(file, StreamingWriterBenchmark.LINE, payload.length, pool));
+    }
+
+    @Benchmark
+    public void streamingNio() throws Exception {
+        runAll(file -> StreamingWriterBenchmark.writeNio(file, StreamingWriterBenchmark.LINE, payload.length, pool));
+    }
+
+    @Benchmark
+    public void recordsPerWrite() throws Exception {
+        runAllRecords((file, batch) -> GatherWriterBenchmark.writePerRecord(file, batch));
+    }
+
+    @Benchmark
+    public void recordsGathering() throws Exception {
+        runAllRecords((file, batch) -> GatherWriterBenchmark.writeGathering(file, batch, GatherWriterBenchmark.DEFAULT_BATCH_SIZE));
+    }
+
+    private void runAll(FileTask task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (Path file : files) {
+            futures.add(executor.submit(() -> {
+                task.write(file);
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+    }
+
+    /** Each thread owns one record array; it is rewound first because gathering writes consume the buffers. */
+    private void runAllRecords(GatherWriterBenchmark.RecordTask task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Path file = files.get(i);
+            ByteBuffer[] batch = records[i];
+            futures.add(executor.submit(() -> {
+                for (ByteBuffer record : batch) {
+                    record.rewind();
+                }
+                task.write(file, batch);
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package LearningStreams;
+
+/**
+ * How much of a replayable pipeline's output is kept for later consumers.
+ * <ul>
+ *   <li>{@link #all()} – keep everything; every consumer after the first replays the buffer.</li>
+ *   <li>{@link #prefix(int)} – keep the first {@code n} elements; later consumers replay them and
+ *       re-run the source for the rest. Short-circuiting consumers ({@code limit}, {@code findFirst},
+ *       {@code anyMatch}) that stay inside the prefix never touch the source again.</li>
+ *   <li>{@link #none()} – keep nothing; every consumer rebuilds the pipeline.</li>
+ * </ul>
+ */
+public final class CachePolicy {
+
+    private static final CachePolicy ALL = new CachePolicy(Integer.MAX_VALUE);
+    private static final CachePolicy NONE = new CachePolicy(0);
+
+    final int limit;
+
+    private CachePolicy(int limit) {
+        this.limit = limit;
+    }
+
+    public static CachePolicy all() {
+        return ALL;
+    }
+
+    public static CachePolicy none() {
+        return NONE;
+    }
+
+    public static CachePolicy prefix(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("prefix length must not be negative: " + n);
+        }
+        return new CachePolicy(n);
+    }
+
+    @Override
+    public String toString() {
+        return this == ALL ? "all" : limit == 0 ? "none" : "prefix(" + limit + ")";
+    }
+}
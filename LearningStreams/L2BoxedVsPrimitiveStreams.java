@@ -0,0 +1,119 @@
+package LearningStreams;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * What the {@code .boxed()} in {@link L1SimpleStreams} costs.
+ * <p>
+ * The same pipeline – keep multiples of 5, square them, then sum or collect – runs three ways:
+ * <ul>
+ *   <li><b>boxed</b> – {@code IntStream.range(..).boxed()}: every element is an {@link Integer}, every square a {@link Long}.</li>
+ *   <li><b>primitive</b> – {@code IntStream}/{@code LongStream} end to end; no wrapper objects.</li>
+ *   <li><b>loop</b> – a hand-written {@code for} loop, the floor the other two are measured against.</li>
+ * </ul>
+ * Squares are computed as {@code long} so 100M elements do not overflow. The {@code *Histogram} pair buckets
+ * the same filtered values with {@code groupingBy(.., counting())} versus {@link PrimitiveCollectors#histogram}.
+ * <p>
+ * <b>Run (GC profiler attached, reports {@code gc.alloc.rate.norm} = bytes allocated per operation):</b>
+ * <pre>{@code
+ * mvn -B package
+ * java -cp target/benchmarks.jar LearningStreams.L2BoxedVsPrimitiveStreams
+ * # or: java -jar target/benchmarks.jar L2BoxedVsPrimitiveStreams -prof gc
+ * }</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class L2BoxedVsPrimitiveStreams {
+
+    @Param({"10000", "100000", "1000000", "10000000", "100000000"})
+    public int size;
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(L2BoxedVsPrimitiveStreams.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    public long boxedSum() {
+        return IntStream.range(0, size).boxed()
+                .filter(i -> i % 5 == 0)
+                .map(i -> (long) i * i)
+                .reduce(0L, Long::sum);
+    }
+
+    @Benchmark
+    public long primitiveSum() {
+        return IntStream.range(0, size)
+                .filter(i -> i % 5 == 0)
+                .mapToLong(i -> (long) i * i)
+                .sum();
+    }
+
+    @Benchmark
+    public long loopSum() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            if (i % 5 == 0) {
+                sum += (long) i * i;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<Long> boxedCollect() {
+        return IntStream.range(0, size).boxed()
+                .filter(i -> i % 5 == 0)
+                .map(i -> (long) i * i)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public long[] primitiveCollect() {
+        return IntStream.range(0, size)
+                .filter(i -> i % 5 == 0)
+                .mapToLong(i -> (long) i * i)
+                .toArray();
+    }
+
+    @Benchmark
+    public long[] loopCollect() {
+        long[] out = new long[(size + 4) / 5];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (i % 5 == 0) {
+                out[n++] = (long) i * i;
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public Map<Integer, Long> boxedHistogram() {
+        return IntStream.range(0, size).boxed()
+                .filter(i -> i % 5 == 0)
+                .collect(Collectors.groupingBy(i -> (int) ((long) i * 64 / size), Collectors.counting()));
+    }
+
+    @Benchmark
+    public PrimitiveCollectors.IntHistogram primitiveHistogram() {
+        return PrimitiveCollectors.histogram(IntStream.range(0, size).filter(i -> i % 5 == 0), 0, size, 64);
+    }
+}
@@ -0,0 +1,100 @@
+package LearningStreams;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Parallel line processing over a large file: {@code Files.lines}, {@code BufferedReader.lines} and
+ * {@link MappedLineSpliterator}, each running {@code .parallel().filter(..).count()} inside a dedicated
+ * {@link ForkJoinPool} of {@code cores} workers (a parallel stream started from inside a pool task runs
+ * in that pool instead of the common one).
+ * <p>
+ * The two file sizes answer different questions. At 256 MB {@code Files.lines} still splits on byte ranges itself,
+ * so all it checks is that {@link MappedLineSpliterator} keeps up with it. The 3 GB point is past the 2 GB limit where
+ * {@code Files.lines} falls back to a single sequential reader like {@code BufferedReader.lines}, and is the one
+ * that shows the difference; it needs about 3 GB of free space in the temp directory.
+ * <pre>{@code
+ * java -jar target/benchmarks.jar L3ParallelFileLinesBenchmark -p cores=1,2,4,8
+ * java -jar target/benchmarks.jar L3ParallelFileLinesBenchmark -p fileMb=256    # quick parity check only
+ * }</pre>
+ * Throughput is reported in ops/s, one op being a full pass over the file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class L3ParallelFileLinesBenchmark {
+
+    @Param({"256", "3072"})
+    public int fileMb;
+
+    @Param({"1", "2", "4", "8"})
+    public int cores;
+
+    private Path file;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("lines", ".log");
+        long target = fileMb * 1024L * 1024;
+        long written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (long i = 0; written < target; i++) {
+                String line = (i % 97 == 0 ? "ERROR" : "INFO") + " request " + i + " served in " + (i % 1000) + " ms";
+                out.write(line);
+                out.write('\n');
+                written += line.length() + 1;
+            }
+        }
+        pool = new ForkJoinPool(cores);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long filesLines() throws Exception {
+        return pool.submit(() -> {
+            try (Stream<String> lines = Files.lines(file)) {
+                return countErrors(lines);
+            }
+        }).get();
+    }
+
+    @Benchmark
+    public long bufferedReaderLines() throws Exception {
+        return pool.submit(() -> {
+            try (BufferedReader reader = Files.newBufferedReader(file)) {
+                return countErrors(reader.lines());
+            }
+        }).get();
+    }
+
+    @Benchmark
+    public long mappedLines() throws Exception {
+        return pool.submit(() -> {
+            try (Stream<String> lines = MappedLineSpliterator.lines(file)) {
+                return countErrors(lines);
+            }
+        }).get();
+    }
+
+    private static long countErrors(Stream<String> lines) {
+        return lines.parallel().filter(l -> l.startsWith("ERROR")).count();
+    }
+}
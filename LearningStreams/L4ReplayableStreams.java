@@ -0,0 +1,46 @@
+package LearningStreams;
+
+import metrics.Metrics;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link L1SimpleStreams} without the {@link IllegalStateException}: the multiples-of-five pipeline is wrapped
+ * in a {@link ReplayableIntStream}. The first pass ({@code sum()}) runs the filter and records its output, the
+ * second ({@code max()}) replays the cached {@code int[]} instead of failing or re-running the filter. The
+ * second pipeline caches only a 100-element prefix and continues from the source after replaying it. A source
+ * of exactly 100 elements fills that prefix and is still cached as complete. The last pipeline replays objects,
+ * nulls included. {@link StageCounters} on each source show how often it really ran: once for the cached
+ * pipelines, twice for the prefix one.
+ */
+public class L4ReplayableStreams {
+
+    public static void main(String[] args) {
+        ReplayableIntStream fiveDivIntStream = ReplayableIntStream.of(
+                () -> StageCounters.count(IntStream.range(0, 10_000), "l4.all.source").filter(i -> i % 5 == 0),
+                CachePolicy.all());
+
+        System.out.println("first pass sum : " + fiveDivIntStream.stream().sum());
+        System.out.println("cached elements: " + fiveDivIntStream.cachedSize());
+        System.out.println("second pass max: " + fiveDivIntStream.stream().max().orElse(-1));
+
+        ReplayableIntStream firstHundred = ReplayableIntStream.of(
+                () -> StageCounters.count(IntStream.range(0, 10_000), "l4.prefix.source").filter(i -> i % 5 == 0),
+                CachePolicy.prefix(100));
+        System.out.println("prefix count   : " + firstHundred.stream().count());
+        System.out.println("prefix cached  : " + firstHundred.cachedSize());
+        System.out.println("replay + tail  : " + firstHundred.stream().count());
+
+        ReplayableIntStream exactlyHundred = ReplayableIntStream.of(
+                () -> StageCounters.count(IntStream.range(0, 500), "l4.exact.source").filter(i -> i % 5 == 0),
+                CachePolicy.prefix(100));
+        System.out.println("exact count    : " + exactlyHundred.stream().count());
+        System.out.println("exact replay   : " + exactlyHundred.stream().count());
+
+        ReplayableStream<String> withNulls = ReplayableStream.of(() -> Stream.of("a", null, "b"), CachePolicy.all());
+        System.out.println("with nulls     : " + withNulls.stream().toList());
+        System.out.println("nulls replayed : " + withNulls.stream().toList());
+        System.out.print(Metrics.snapshot());
+    }
+}
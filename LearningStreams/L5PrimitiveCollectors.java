@@ -0,0 +1,72 @@
+package LearningStreams;
+
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * The {@link L1SimpleStreams} pipeline finished with {@link PrimitiveCollectors} instead of
+ * {@code Collectors.toList()}, then fed in {@link PrimitiveBatches} into a bulk file writer.
+ * {@link StageCounters} count what enters and leaves the filters; the counts are printed at the end. A histogram
+ * over the whole {@code int} range checks that bucketing does not overflow.
+ */
+public class L5PrimitiveCollectors {
+
+    public static void main(String[] args) throws IOException {
+        IntStream source = StageCounters.count(IntStream.range(0, 10_000), "l5.source");
+        int[] fiveDiv = PrimitiveCollectors.toIntArray(StageCounters.count(source.filter(i -> i % 5 == 0), "l5.fiveDiv"));
+        System.out.println("collected " + fiveDiv.length + " ints, last " + fiveDiv[fiveDiv.length - 1]);
+
+        PrimitiveCollectors.IntHistogram histogram =
+                PrimitiveCollectors.histogram(StageCounters.count(IntStream.range(0, 10_000).parallel(), "l5.histogram.source")
+                        .map(i -> i % 1000), 0, 1000, 10);
+        for (int b = 0; b < histogram.buckets(); b++) {
+            System.out.println("  [" + histogram.lowerBound(b) + ", " + histogram.lowerBound(b + 1) + ") " + histogram.count(b));
+        }
+
+        // The widest range an int histogram can have: min - max does not fit in an int.
+        PrimitiveCollectors.IntHistogram full =
+                PrimitiveCollectors.histogram(IntStream.of(Integer.MIN_VALUE, -1, 0, Integer.MAX_VALUE - 1), Integer.MIN_VALUE,
+                        Integer.MAX_VALUE, 4);
+        System.out.println("full int range: " + full.count(0) + " " + full.count(1) + " " + full.count(2) + " "
+                + full.count(3) + (full.count(0) == 1 && full.count(1) == 1 && full.count(2) == 1 && full.count(3) == 1
+                ? " (ok)" : " (WRONG BUCKETS)"));
+
+        int[] top = PrimitiveCollectors.topK(IntStream.range(0, 10_000).parallel().map(i -> (i * 7919) % 10_007), 5);
+        System.out.println("top 5: " + Arrays.toString(top));
+
+        Path file = Files.createTempFile("ints", ".bin");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4096 * Integer.BYTES);
+        try (FileChannel channel = FileChannel.open(file, WRITE, TRUNCATE_EXISTING)) {
+            IntStream fiveDivMillion = StageCounters.count(IntStream.range(0, 1_000_000).filter(i -> i % 5 == 0), "l5.batches.fiveDiv");
+            PrimitiveBatches.batches(fiveDivMillion, 4096)
+                    .forEachOrdered(batch -> writeInts(channel, buffer, batch));
+            System.out.println("wrote " + channel.size() + " bytes in 4096-int batches");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.print(Metrics.snapshot());
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] batch) {
+        buffer.clear();
+        buffer.asIntBuffer().put(batch);
+        buffer.limit(batch.length * Integer.BYTES);
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package LearningStreams;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * A {@link Spliterator} over the lines of a memory-mapped file that splits on byte ranges.
+ * <p>
+ * {@code BufferedReader.lines} – and {@code Files.lines} for files of 2 GB or more – can only split by
+ * buffering batches of lines off the front of one sequential reader, so the parsing of a big file stays on
+ * one core. Here a split just picks the middle of the byte range and moves
+ * forward to the next {@code '\n'}; both halves start on a line boundary and can be mapped and decoded
+ * independently, so {@code .parallel()} spreads a multi-GB file over the ForkJoin pool the stream runs in.
+ * <p>
+ * Each leaf maps its range lazily in windows of at most {@link #WINDOW_BYTES}; a line may not be longer
+ * than one window. Lines are split on the {@code '\n'} byte and a trailing {@code '\r'} is dropped, which
+ * is correct for ASCII, Latin-1 and UTF-8 but not for UTF-16.
+ * <pre>{@code
+ * try (Stream<String> lines = MappedLineSpliterator.lines(path)) {
+ *     long errors = lines.parallel().filter(l -> l.contains("ERROR")).count();
+ * }
+ * }</pre>
+ */
+public class MappedLineSpliterator implements Spliterator<String> {
+
+    static final long WINDOW_BYTES = 64L * 1024 * 1024;
+    /** Below this many bytes a range is not worth splitting further. */
+    static final long MIN_SPLIT_BYTES = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private long position;
+    private final long end;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    MappedLineSpliterator(FileChannel channel, Charset charset, long start, long end) {
+        this.channel = channel;
+        this.charset = charset;
+        this.position = start;
+        this.end = end;
+    }
+
+    public static Stream<String> lines(Path file) throws IOException {
+        return lines(file, StandardCharsets.UTF_8);
+    }
+
+    /** A sequential stream over the lines of {@code file}; close it to release the channel. */
+    public static Stream<String> lines(Path file, Charset charset) throws IOException {
+        FileChannel channel = FileChannel.open(file, READ);
+        MappedLineSpliterator spliterator = new MappedLineSpliterator(channel, charset, 0, channel.size());
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (position >= end) {
+            return false;
+        }
+        action.accept(nextLine());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        while (position < end) {
+            action.accept(nextLine());
+        }
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        long size = end - position;
+        if (size < 2 * MIN_SPLIT_BYTES) {
+            return null;
+        }
+        long boundary = nextLineStart(position + size / 2);
+        if (boundary <= position || boundary >= end) {
+            return null;
+        }
+        MappedLineSpliterator prefix = new MappedLineSpliterator(channel, charset, position, boundary);
+        position = boundary;
+        window = null;
+        return prefix;
+    }
+
+    /** Bytes, not lines: callers only use it to decide how to balance splits. */
+    @Override
+    public long estimateSize() {
+        return end - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    private String nextLine() {
+        ByteBuffer buffer = windowFor(position);
+        int from = (int) (position - windowStart);
+        int limit = buffer.limit();
+        int i = from;
+        while (i < limit && buffer.get(i) != '\n') {
+            i++;
+        }
+        if (i == limit && windowStart + limit < end) {
+            // The line runs past this window: remap starting at the line and scan again.
+            window = null;
+            buffer = windowFor(position);
+            from = 0;
+            limit = buffer.limit();
+            i = 0;
+            while (i < limit && buffer.get(i) != '\n') {
+                i++;
+            }
+            if (i == limit && windowStart + limit < end) {
+                throw new IllegalStateException("line at byte " + position + " is longer than " + WINDOW_BYTES + " bytes");
+            }
+        }
+        int lineEnd = i;
+        if (lineEnd > from && buffer.get(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+        byte[] bytes = new byte[lineEnd - from];
+        buffer.get(from, bytes);
+        position = windowStart + Math.min(i + 1, limit);
+        return new String(bytes, charset);
+    }
+
+    /** Returns a window containing {@code at}, mapping a new one from {@code at} when needed. */
+    private ByteBuffer windowFor(long at) {
+        if (window == null || at < windowStart || at >= windowStart + window.limit()) {
+            long size = Math.min(WINDOW_BYTES, end - at);
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, at, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            windowStart = at;
+        }
+        return window;
+    }
+
+    /** Position just after the first {@code '\n'} at or after {@code from}, or {@link #end} if there is none. */
+    private long nextLineStart(long from) {
+        ByteBuffer probe = ByteBuffer.allocate(8 * 1024);
+        long at = from;
+        try {
+            while (at < end) {
+                probe.clear();
+                int n = channel.read(probe, at);
+                if (n <= 0) {
+                    return end;
+                }
+                for (int i = 0; i < n && at + i < end; i++) {
+                    if (probe.get(i) == '\n') {
+                        return at + i + 1;
+                    }
+                }
+                at += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return end;
+    }
+}
@@ -0,0 +1,173 @@
+package LearningStreams;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Batching stage: turns an {@link IntStream}/{@link LongStream} into a stream of fixed-size primitive chunks.
+ * <p>
+ * Chunked sinks (bulk file writes, batched inserts, network frames) want arrays, not elements. Going through
+ * {@code boxed()} and a grouping collector builds one object per element; here the upstream spliterator is
+ * drained straight into an {@code int[]}/{@code long[]} per batch, so the only allocation is the batch
+ * itself. Every batch has exactly {@code size} elements except the last one – and, in a parallel pipeline,
+ * the last one of each split.
+ * <pre>{@code
+ * PrimitiveBatches.batches(IntStream.range(0, n).filter(i -> i % 5 == 0), 4096)
+ *         .forEach(writer::writeInts);
+ * }</pre>
+ */
+public final class PrimitiveBatches {
+
+    private PrimitiveBatches() {
+    }
+
+    public static Stream<int[]> batches(IntStream stream, int size) {
+        checkSize(size);
+        return StreamSupport.stream(new IntBatcher(stream.spliterator(), size), stream.isParallel())
+                .onClose(stream::close);
+    }
+
+    public static Stream<long[]> batches(LongStream stream, int size) {
+        checkSize(size);
+        return StreamSupport.stream(new LongBatcher(stream.spliterator(), size), stream.isParallel())
+                .onClose(stream::close);
+    }
+
+    private static void checkSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("batch size must be positive: " + size);
+        }
+    }
+
+    private static final class IntBatcher extends Spliterators.AbstractSpliterator<int[]> implements IntConsumer {
+
+        private final Spliterator.OfInt upstream;
+        private final int size;
+        private int[] batch;
+        private int filled;
+
+        IntBatcher(Spliterator.OfInt upstream, int size) {
+            super(ceilDiv(upstream.estimateSize(), size), upstream.characteristics() & (ORDERED | NONNULL | IMMUTABLE));
+            this.upstream = upstream;
+            this.size = size;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super int[]> action) {
+            long remaining = upstream.getExactSizeIfKnown();
+            if (remaining >= 0 && remaining <= size) {
+                return drainLast(action, (int) remaining);
+            }
+            batch = new int[size];
+            filled = 0;
+            while (filled < size && upstream.tryAdvance(this)) {
+                // drained into batch by accept
+            }
+            if (filled == 0) {
+                batch = null;
+                return false;
+            }
+            action.accept(filled == size ? batch : Arrays.copyOf(batch, filled));
+            batch = null;
+            return true;
+        }
+
+        @Override
+        public Spliterator<int[]> trySplit() {
+            Spliterator.OfInt prefix = upstream.trySplit();
+            return prefix == null ? null : new IntBatcher(prefix, size);
+        }
+
+        /** Receives upstream elements; the batcher is its own consumer so no per-element lambda is captured. */
+        @Override
+        public void accept(int value) {
+            batch[filled++] = value;
+        }
+
+        /** The rest of a sized upstream fits one batch: size it exactly and drain it in bulk. */
+        private boolean drainLast(Consumer<? super int[]> action, int remaining) {
+            if (remaining == 0) {
+                return false;
+            }
+            batch = new int[remaining];
+            filled = 0;
+            upstream.forEachRemaining(this);
+            int[] last = batch;
+            batch = null;
+            action.accept(last);
+            return true;
+        }
+    }
+
+    private static final class LongBatcher extends Spliterators.AbstractSpliterator<long[]> implements LongConsumer {
+
+        private final Spliterator.OfLong upstream;
+        private final int size;
+        private long[] batch;
+        private int filled;
+
+        LongBatcher(Spliterator.OfLong upstream, int size) {
+            super(ceilDiv(upstream.estimateSize(), size), upstream.characteristics() & (ORDERED | NONNULL | IMMUTABLE));
+            this.upstream = upstream;
+            this.size = size;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super long[]> action) {
+            long remaining = upstream.getExactSizeIfKnown();
+            if (remaining >= 0 && remaining <= size) {
+                return drainLast(action, (int) remaining);
+            }
+            batch = new long[size];
+            filled = 0;
+            while (filled < size && upstream.tryAdvance(this)) {
+                // drained into batch by accept
+            }
+            if (filled == 0) {
+                batch = null;
+                return false;
+            }
+            action.accept(filled == size ? batch : Arrays.copyOf(batch, filled));
+            batch = null;
+            return true;
+        }
+
+        @Override
+        public Spliterator<long[]> trySplit() {
+            Spliterator.OfLong prefix = upstream.trySplit();
+            return prefix == null ? null : new LongBatcher(prefix, size);
+        }
+
+        /** Receives upstream elements; the batcher is its own consumer so no per-element lambda is captured. */
+        @Override
+        public void accept(long value) {
+            batch[filled++] = value;
+        }
+
+        /** The rest of a sized upstream fits one batch: size it exactly and drain it in bulk. */
+        private boolean drainLast(Consumer<? super long[]> action, int remaining) {
+            if (remaining == 0) {
+                return false;
+            }
+            batch = new long[remaining];
+            filled = 0;
+            upstream.forEachRemaining(this);
+            long[] last = batch;
+            batch = null;
+            action.accept(last);
+            return true;
+        }
+    }
+
+    private static long ceilDiv(long estimate, int size) {
+        return estimate == Long.MAX_VALUE ? Long.MAX_VALUE : (estimate + size - 1) / size;
+    }
+}
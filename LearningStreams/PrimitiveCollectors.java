@@ -0,0 +1,244 @@
+package LearningStreams;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Terminal operations for {@link IntStream}/{@link LongStream} that never box an element.
+ * <p>
+ * {@code Collectors.toList()} (the commented-out line in {@link L1SimpleStreams}) only works on
+ * {@code Stream<Integer>}, so the pipeline has to {@code boxed()} first and the list grows an
+ * {@code Object[]} of wrappers. The containers here plug into the primitive three-argument
+ * {@link IntStream#collect} instead: per element they only write into arrays allocated up front (or grown
+ * geometrically), and the combiners make them safe for {@code .parallel()} pipelines.
+ * <pre>{@code
+ * int[] squares = PrimitiveCollectors.toIntArray(IntStream.range(0, n).map(i -> i * i));
+ * IntHistogram h = PrimitiveCollectors.histogram(latenciesMicros, 0, 10_000, 100);
+ * int[] slowest = PrimitiveCollectors.topK(latenciesMicros, 10);
+ * }</pre>
+ */
+public final class PrimitiveCollectors {
+
+    private PrimitiveCollectors() {
+    }
+
+    public static int[] toIntArray(IntStream stream) {
+        return stream.collect(IntArrayBuilder::new, IntArrayBuilder::add, IntArrayBuilder::addAll).toArray();
+    }
+
+    public static long[] toLongArray(LongStream stream) {
+        return stream.collect(LongArrayBuilder::new, LongArrayBuilder::add, LongArrayBuilder::addAll).toArray();
+    }
+
+    /** Counts values into {@code buckets} equal-width buckets over {@code [min, max)}. */
+    public static IntHistogram histogram(IntStream stream, int min, int max, int buckets) {
+        return stream.collect(() -> new IntHistogram(min, max, buckets), IntHistogram::add, IntHistogram::merge);
+    }
+
+    /** The {@code k} largest values, in descending order. */
+    public static int[] topK(IntStream stream, int k) {
+        return stream.collect(() -> new IntTopK(k), IntTopK::add, IntTopK::merge).toSortedArray();
+    }
+
+    /** A growable {@code int[]}; grows by half its size so appends are amortised O(1). */
+    public static final class IntArrayBuilder {
+
+        private int[] values = new int[16];
+        private int size;
+
+        public void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            values[size++] = value;
+        }
+
+        public void addAll(IntArrayBuilder other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, size + other.size);
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    public static final class LongArrayBuilder {
+
+        private long[] values = new long[16];
+        private int size;
+
+        public void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            values[size++] = value;
+        }
+
+        public void addAll(LongArrayBuilder other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, size + other.size);
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /** Fixed equal-width buckets plus underflow/overflow counters; all storage is allocated in the constructor. */
+    public static final class IntHistogram {
+
+        private final int min;
+        private final int max;
+        private final long[] counts;
+        private long underflow;
+        private long overflow;
+
+        public IntHistogram(int min, int max, int buckets) {
+            if (max <= min || buckets <= 0) {
+                throw new IllegalArgumentException("need min < max and a positive bucket count");
+            }
+            this.min = min;
+            this.max = max;
+            this.counts = new long[buckets];
+        }
+
+        public void add(int value) {
+            if (value < min) {
+                underflow++;
+            } else if (value >= max) {
+                overflow++;
+            } else {
+                counts[(int) (((long) value - min) * counts.length / ((long) max - min))]++;
+            }
+        }
+
+        public void merge(IntHistogram other) {
+            if (other.min != min || other.max != max || other.counts.length != counts.length) {
+                throw new IllegalArgumentException("histograms have different bucket layouts");
+            }
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            underflow += other.underflow;
+            overflow += other.overflow;
+        }
+
+        public long count(int bucket) {
+            return counts[bucket];
+        }
+
+        public int buckets() {
+            return counts.length;
+        }
+
+        /** Inclusive lower bound of {@code bucket}. */
+        public int lowerBound(int bucket) {
+            return (int) (min + (long) bucket * ((long) max - min) / counts.length);
+        }
+
+        public long underflow() {
+            return underflow;
+        }
+
+        public long overflow() {
+            return overflow;
+        }
+
+        public long total() {
+            long total = underflow + overflow;
+            for (long c : counts) {
+                total += c;
+            }
+            return total;
+        }
+    }
+
+    /** Bounded min-heap in an {@code int[]}: the root is the smallest of the current top {@code k}. */
+    public static final class IntTopK {
+
+        private final int[] heap;
+        private int size;
+
+        public IntTopK(int k) {
+            if (k <= 0) {
+                throw new IllegalArgumentException("k must be positive: " + k);
+            }
+            this.heap = new int[k];
+        }
+
+        public void add(int value) {
+            if (size < heap.length) {
+                heap[size] = value;
+                siftUp(size++);
+            } else if (value > heap[0]) {
+                heap[0] = value;
+                siftDown(0);
+            }
+        }
+
+        public void merge(IntTopK other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.heap[i]);
+            }
+        }
+
+        public int[] toSortedArray() {
+            int[] sorted = Arrays.copyOf(heap, size);
+            Arrays.sort(sorted);
+            for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+                int t = sorted[i];
+                sorted[i] = sorted[j];
+                sorted[j] = t;
+            }
+            return sorted;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= heap[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    return;
+                }
+                int smallest = left + 1 < size && heap[left + 1] < heap[left] ? left + 1 : left;
+                if (heap[i] <= heap[smallest]) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int t = heap[a];
+            heap[a] = heap[b];
+            heap[b] = t;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package LearningStreams;
+
+import java.util.function.Supplier;
+import java.util.stream.BaseStream;
+
+/**
+ * What {@link ReplayableIntStream}, {@link ReplayableLongStream} and {@link ReplayableStream} share: the pipeline
+ * supplier, the published cache and the choice between replaying it, replaying it and continuing from the source,
+ * or recording. The element-specific parts – the cache type {@code C} and the recorder that fills it – stay in
+ * the subclasses, so primitive elements are never boxed.
+ * <p>
+ * Every stream taken from the source is closed: by the recorder as soon as the source is exhausted, and in any
+ * case when the returned stream is closed.
+ */
+abstract class Replayable<C, S extends BaseStream<?, S>> {
+
+    private final Supplier<? extends S> source;
+    final CachePolicy policy;
+
+    private C cache;
+    /** Whether {@link #cache} holds the whole output or only a prefix of it. */
+    private boolean complete;
+
+    Replayable(Supplier<? extends S> source, CachePolicy policy) {
+        this.source = source;
+        this.policy = policy;
+    }
+
+    /** A fresh stream over the pipeline's output; may be called as often as needed. */
+    public S stream() {
+        C cached;
+        boolean whole;
+        synchronized (this) {
+            cached = cache;
+            whole = complete;
+        }
+        if (cached != null) {
+            return whole ? replay(cached) : concat(replay(cached), skip(source.get(), size(cached)));
+        }
+        if (policy.limit == 0) {
+            return source.get();
+        }
+        S upstream = source.get();
+        return record(upstream).onClose(upstream::close);
+    }
+
+    /** Elements currently held in the cache. */
+    public synchronized int cachedSize() {
+        return cache == null ? 0 : size(cache);
+    }
+
+    /** Keeps the first recording that completes; later ones are dropped. */
+    final synchronized void publish(C values, boolean whole) {
+        if (cache == null) {
+            cache = values;
+            complete = whole;
+        }
+    }
+
+    abstract int size(C cached);
+
+    abstract S replay(C cached);
+
+    abstract S concat(S head, S tail);
+
+    abstract S skip(S stream, int n);
+
+    /** {@code upstream}'s elements, recorded into the cache as they pass; closes {@code upstream} once exhausted. */
+    abstract S record(S upstream);
+}
@@ -0,0 +1,152 @@
+package LearningStreams;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An {@link IntStream} pipeline that can be consumed any number of times.
+ * <p>
+ * A stream can be traversed once; the second {@code forEach} in {@link L1SimpleStreams} throws
+ * {@link IllegalStateException}. The usual fixes are collecting into a {@code List<Integer>} (eager, boxed)
+ * or rebuilding the pipeline (recomputes everything). Here the pipeline is kept as a {@link Supplier} and is
+ * only run when a consumer pulls from {@link #stream()}. While that consumer traverses it, elements are
+ * recorded into a private growable {@code int[]} according to the {@link CachePolicy}; once the cached part
+ * is complete it is published and every later consumer replays the array.
+ * <p>
+ * A consumer that short-circuits before the cached part is filled leaves nothing behind, and the next
+ * consumer records again. Recording traversals are sequential. The source stream is closed once it is
+ * exhausted, or when the returned stream is closed.
+ * See {@link ReplayableLongStream} for {@code long} elements and {@link ReplayableStream} for objects.
+ */
+public class ReplayableIntStream extends Replayable<int[], IntStream> {
+
+    private ReplayableIntStream(Supplier<IntStream> source, CachePolicy policy) {
+        super(source, policy);
+    }
+
+    public static ReplayableIntStream of(Supplier<IntStream> source, CachePolicy policy) {
+        return new ReplayableIntStream(source, policy);
+    }
+
+    @Override
+    int size(int[] cached) {
+        return cached.length;
+    }
+
+    @Override
+    IntStream replay(int[] cached) {
+        return Arrays.stream(cached);
+    }
+
+    @Override
+    IntStream concat(IntStream head, IntStream tail) {
+        return IntStream.concat(head, tail);
+    }
+
+    @Override
+    IntStream skip(IntStream stream, int n) {
+        return stream.skip(n);
+    }
+
+    @Override
+    IntStream record(IntStream upstream) {
+        return StreamSupport.intStream(new Recorder(upstream), false);
+    }
+
+    /** Passes elements through while copying the first {@code policy.limit} of them aside. */
+    private final class Recorder extends Spliterators.AbstractIntSpliterator {
+
+        private final IntStream stream;
+        private final Spliterator.OfInt upstream;
+        private int[] buffer = new int[16];
+        private int size;
+        /** The buffer holds {@code policy.limit} elements; publishing waits to learn whether more follow. */
+        private boolean full;
+        private boolean published;
+        /** An element read past the prefix to probe the source, not yet handed downstream. */
+        private boolean hasPending;
+        private int pending;
+
+        Recorder(IntStream stream) {
+            this(stream, stream.spliterator());
+        }
+
+        private Recorder(IntStream stream, Spliterator.OfInt upstream) {
+            super(upstream.estimateSize(), upstream.characteristics() & ~(SIZED | SUBSIZED | SORTED));
+            this.stream = stream;
+            this.upstream = upstream;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (hasPending) {
+                hasPending = false;
+                action.accept(pending);
+                return true;
+            }
+            boolean advanced = upstream.tryAdvance((int value) -> {
+                record(value);
+                action.accept(value);
+            });
+            if (!advanced) {
+                finish(true);
+            } else if (full && !published) {
+                probe();
+            }
+            return advanced;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            if (hasPending) {
+                hasPending = false;
+                action.accept(pending);
+            }
+            upstream.forEachRemaining((int value) -> {
+                record(value);
+                action.accept(value);
+            });
+            finish(true);
+        }
+
+        private void record(int value) {
+            if (published) {
+                return;
+            }
+            if (full) {
+                finish(false);
+                return;
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size + (size >> 1) + 1);
+            }
+            buffer[size++] = value;
+            full = size == policy.limit;
+        }
+
+        /**
+         * Reads one element past a full buffer, outside any upstream callback, so a source of exactly
+         * {@code policy.limit} elements is published as complete and later consumers never re-run it.
+         */
+        private void probe() {
+            hasPending = upstream.tryAdvance((int value) -> pending = value);
+            finish(!hasPending);
+        }
+
+        private void finish(boolean sourceExhausted) {
+            if (!published) {
+                published = true;
+                publish(Arrays.copyOf(buffer, size), sourceExhausted);
+                buffer = null;
+            }
+            if (sourceExhausted) {
+                stream.close();
+            }
+        }
+    }
+}
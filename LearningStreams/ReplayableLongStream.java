@@ -0,0 +1,141 @@
+package LearningStreams;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The {@code long} twin of {@link ReplayableIntStream}: a replayable {@link LongStream} pipeline whose cached
+ * output lives in a {@code long[]}.
+ */
+public class ReplayableLongStream extends Replayable<long[], LongStream> {
+
+    private ReplayableLongStream(Supplier<LongStream> source, CachePolicy policy) {
+        super(source, policy);
+    }
+
+    public static ReplayableLongStream of(Supplier<LongStream> source, CachePolicy policy) {
+        return new ReplayableLongStream(source, policy);
+    }
+
+    @Override
+    int size(long[] cached) {
+        return cached.length;
+    }
+
+    @Override
+    LongStream replay(long[] cached) {
+        return Arrays.stream(cached);
+    }
+
+    @Override
+    LongStream concat(LongStream head, LongStream tail) {
+        return LongStream.concat(head, tail);
+    }
+
+    @Override
+    LongStream skip(LongStream stream, int n) {
+        return stream.skip(n);
+    }
+
+    @Override
+    LongStream record(LongStream upstream) {
+        return StreamSupport.longStream(new Recorder(upstream), false);
+    }
+
+    /** Passes elements through while copying the first {@code policy.limit} of them aside. */
+    private final class Recorder extends Spliterators.AbstractLongSpliterator {
+
+        private final LongStream stream;
+        private final Spliterator.OfLong upstream;
+        private long[] buffer = new long[16];
+        private int size;
+        /** The buffer holds {@code policy.limit} elements; publishing waits to learn whether more follow. */
+        private boolean full;
+        private boolean published;
+        /** An element read past the prefix to probe the source, not yet handed downstream. */
+        private boolean hasPending;
+        private long pending;
+
+        Recorder(LongStream stream) {
+            this(stream, stream.spliterator());
+        }
+
+        private Recorder(LongStream stream, Spliterator.OfLong upstream) {
+            super(upstream.estimateSize(), upstream.characteristics() & ~(SIZED | SUBSIZED | SORTED));
+            this.stream = stream;
+            this.upstream = upstream;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (hasPending) {
+                hasPending = false;
+                action.accept(pending);
+                return true;
+            }
+            boolean advanced = upstream.tryAdvance((long value) -> {
+                record(value);
+                action.accept(value);
+            });
+            if (!advanced) {
+                finish(true);
+            } else if (full && !published) {
+                probe();
+            }
+            return advanced;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            if (hasPending) {
+                hasPending = false;
+                action.accept(pending);
+            }
+            upstream.forEachRemaining((long value) -> {
+                record(value);
+                action.accept(value);
+            });
+            finish(true);
+        }
+
+        private void record(long value) {
+            if (published) {
+                return;
+            }
+            if (full) {
+                finish(false);
+                return;
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size + (size >> 1) + 1);
+            }
+            buffer[size++] = value;
+            full = size == policy.limit;
+        }
+
+        /**
+         * Reads one element past a full buffer, outside any upstream callback, so a source of exactly
+         * {@code policy.limit} elements is published as complete and later consumers never re-run it.
+         */
+        private void probe() {
+            hasPending = upstream.tryAdvance((long value) -> pending = value);
+            finish(!hasPending);
+        }
+
+        private void finish(boolean sourceExhausted) {
+            if (!published) {
+                published = true;
+                publish(Arrays.copyOf(buffer, size), sourceExhausted);
+                buffer = null;
+            }
+            if (sourceExhausted) {
+                stream.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package LearningStreams;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Object counterpart of {@link ReplayableIntStream}. Elements are cached by reference in a list, so prefer
+ * the primitive variants for {@code int}/{@code long} data instead of replaying boxed values.
+ */
+public class ReplayableStream<T> extends Replayable<List<T>, Stream<T>> {
+
+    private ReplayableStream(Supplier<? extends Stream<T>> source, CachePolicy policy) {
+        super(source, policy);
+    }
+
+    public static <T> ReplayableStream<T> of(Supplier<? extends Stream<T>> source, CachePolicy policy) {
+        return new ReplayableStream<>(source, policy);
+    }
+
+    @Override
+    int size(List<T> cached) {
+        return cached.size();
+    }
+
+    @Override
+    Stream<T> replay(List<T> cached) {
+        return cached.stream();
+    }
+
+    @Override
+    Stream<T> concat(Stream<T> head, Stream<T> tail) {
+        return Stream.concat(head, tail);
+    }
+
+    @Override
+    Stream<T> skip(Stream<T> stream, int n) {
+        return stream.skip(n);
+    }
+
+    @Override
+    Stream<T> record(Stream<T> upstream) {
+        return StreamSupport.stream(new Recorder(upstream), false);
+    }
+
+    private final class Recorder extends Spliterators.AbstractSpliterator<T> {
+
+        private final Stream<T> stream;
+        private final Spliterator<T> upstream;
+        private List<T> buffer = new ArrayList<>();
+        /** The buffer holds {@code policy.limit} elements; publishing waits to learn whether more follow. */
+        private boolean full;
+        private boolean published;
+        /** An element read past the prefix to probe the source, not yet handed downstream. */
+        private boolean hasPending;
+        private T pending;
+
+        Recorder(Stream<T> stream) {
+            this(stream, stream.spliterator());
+        }
+
+        private Recorder(Stream<T> stream, Spliterator<T> upstream) {
+            super(upstream.estimateSize(), upstream.characteristics() & ~(SIZED | SUBSIZED | SORTED));
+            this.stream = stream;
+            this.upstream = upstream;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (hasPending) {
+                hasPending = false;
+                T value = pending;
+                pending = null;
+                action.accept(value);
+                return true;
+            }
+            boolean advanced = upstream.tryAdvance(value -> {
+                record(value);
+                action.accept(value);
+            });
+            if (!advanced) {
+                finish(true);
+            } else if (full && !published) {
+                probe();
+            }
+            return advanced;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (hasPending) {
+                hasPending = false;
+                T value = pending;
+                pending = null;
+                action.accept(value);
+            }
+            upstream.forEachRemaining(value -> {
+                record(value);
+                action.accept(value);
+            });
+            finish(true);
+        }
+
+        private void record(T value) {
+            if (published) {
+                return;
+            }
+            if (full) {
+                finish(false);
+                return;
+            }
+            buffer.add(value);
+            full = buffer.size() == policy.limit;
+        }
+
+        /** See {@code ReplayableIntStream.Recorder#probe}. */
+        private void probe() {
+            hasPending = upstream.tryAdvance(value -> pending = value);
+            finish(!hasPending);
+        }
+
+        private void finish(boolean sourceExhausted) {
+            if (!published) {
+                published = true;
+                // not List.copyOf: the stream's elements may be null
+                publish(Collections.unmodifiableList(buffer), sourceExhausted);
+                buffer = null;
+            }
+            if (sourceExhausted) {
+                stream.close();
+            }
+        }
+    }
+}
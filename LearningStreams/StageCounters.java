@@ -0,0 +1,207 @@
+package LearningStreams;
+
+import metrics.Counter;
+import metrics.Metrics;
+
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Counts the elements that pass a point in a pipeline into the {@link Metrics} counter {@code streams.<stage>}.
+ * <pre>{@code
+ * int[] out = PrimitiveCollectors.toIntArray(
+ *         StageCounters.count(StageCounters.count(IntStream.range(0, n), "source").filter(i -> i % 5 == 0), "fiveDiv"));
+ * }</pre>
+ * A {@code peek(i -> counter.increment())} would pay a {@link java.util.concurrent.atomic.LongAdder} update per
+ * element, which on a cheap primitive stage costs more than the stage itself. Here the pipeline is cut at the
+ * stage through its {@link Spliterator}: each spliterator counts in a plain field and adds it to the counter at the
+ * end of a {@code forEachRemaining}, when {@code tryAdvance} runs dry, every {@value #FLUSH_EVERY} elements in
+ * between, and when the stream is closed. The per-element cost is an increment in a register, also for
+ * short-circuiting or iterator-driven pipelines ({@code findFirst}, {@code anyMatch}, {@code limit},
+ * {@code iterator()}), which advance one element at a time and may stop early; such a pipeline reports its last
+ * partial batch only once it is closed. Splits made for {@code .parallel()} are wrapped as well, each with its
+ * own field; every split registers with the stage, and closing the stream flushes all of them, so splits that a
+ * parallel short-circuiting pipeline abandoned part-way still report what they counted.
+ * <p>
+ * {@code SIZED}/{@code SUBSIZED} are masked, as in {@link ReplayableIntStream}: otherwise {@code count()} on a sized
+ * pipeline would answer from the size without traversing, and the stage would report nothing.
+ */
+public final class StageCounters {
+
+    private static final int MASKED = Spliterator.SIZED | Spliterator.SUBSIZED;
+    static final int FLUSH_EVERY = 1024;
+
+    private StageCounters() {
+    }
+
+    public static IntStream count(IntStream stream, String stage) {
+        CountingInt counting = new CountingInt(stream.spliterator(), Metrics.counter("streams." + stage), null);
+        return StreamSupport.intStream(counting, stream.isParallel()).onClose(counting::flushAll).onClose(stream::close);
+    }
+
+    public static LongStream count(LongStream stream, String stage) {
+        CountingLong counting = new CountingLong(stream.spliterator(), Metrics.counter("streams." + stage), null);
+        return StreamSupport.longStream(counting, stream.isParallel()).onClose(counting::flushAll).onClose(stream::close);
+    }
+
+    public static <T> Stream<T> count(Stream<T> stream, String stage) {
+        Counting<T> counting = new Counting<>(stream.spliterator(), Metrics.counter("streams." + stage), null);
+        return StreamSupport.stream(counting, stream.isParallel()).onClose(counting::flushAll).onClose(stream::close);
+    }
+
+    /** What the three element types share: the source, the local count and when it reaches the counter. */
+    private abstract static class CountingBase<T, S extends Spliterator<T>> {
+
+        final S source;
+        final Counter counter;
+        /** Every split of the stage's root, created lazily by the first {@code trySplit}; shared by all of them. */
+        Queue<CountingBase<?, ?>> splits;
+        long seen;
+
+        /** {@code parent} is {@code null} for the root, otherwise the spliterator this one was split from. */
+        CountingBase(S source, Counter counter, CountingBase<?, ?> parent) {
+            this.source = source;
+            this.counter = counter;
+            if (parent != null) {
+                this.splits = parent.splitsOfRoot();
+                splits.add(this);
+            }
+        }
+
+        private Queue<CountingBase<?, ?>> splitsOfRoot() {
+            if (splits == null) {
+                splits = new ConcurrentLinkedQueue<>(); // only the root gets here, from the first trySplit
+            }
+            return splits;
+        }
+
+        /** Call with the result of {@code source.tryAdvance}. */
+        final boolean counted(boolean advanced) {
+            if (!advanced) {
+                flush();
+            } else if (++seen == FLUSH_EVERY) {
+                flush();
+            }
+            return advanced;
+        }
+
+        final void flush() {
+            if (seen > 0) {
+                counter.add(seen);
+                seen = 0;
+            }
+        }
+
+        /** On close: the root and every split; the terminal operation has finished with all of them. */
+        final void flushAll() {
+            flush();
+            if (splits != null) {
+                for (CountingBase<?, ?> split : splits) {
+                    split.flush();
+                }
+            }
+        }
+
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        public int characteristics() {
+            return source.characteristics() & ~MASKED;
+        }
+
+        public Comparator<? super T> getComparator() {
+            return source.getComparator();
+        }
+    }
+
+    private static final class CountingInt extends CountingBase<Integer, Spliterator.OfInt> implements Spliterator.OfInt {
+
+        CountingInt(Spliterator.OfInt source, Counter counter, CountingBase<?, ?> parent) {
+            super(source, counter, parent);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            return counted(source.tryAdvance(action));
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            source.forEachRemaining((int value) -> {
+                seen++;
+                action.accept(value);
+            });
+            flush();
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            Spliterator.OfInt prefix = source.trySplit();
+            return prefix == null ? null : new CountingInt(prefix, counter, this);
+        }
+    }
+
+    private static final class CountingLong extends CountingBase<Long, Spliterator.OfLong> implements Spliterator.OfLong {
+
+        CountingLong(Spliterator.OfLong source, Counter counter, CountingBase<?, ?> parent) {
+            super(source, counter, parent);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            return counted(source.tryAdvance(action));
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            source.forEachRemaining((long value) -> {
+                seen++;
+                action.accept(value);
+            });
+            flush();
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            Spliterator.OfLong prefix = source.trySplit();
+            return prefix == null ? null : new CountingLong(prefix, counter, this);
+        }
+    }
+
+    private static final class Counting<T> extends CountingBase<T, Spliterator<T>> implements Spliterator<T> {
+
+        Counting(Spliterator<T> source, Counter counter, CountingBase<?, ?> parent) {
+            super(source, counter, parent);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            return counted(source.tryAdvance(action));
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            source.forEachRemaining(value -> {
+                seen++;
+                action.accept(value);
+            });
+            flush();
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            Spliterator<T> prefix = source.trySplit();
+            return prefix == null ? null : new Counting<>(prefix, counter, this);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package jvmInternalStuff;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>JIT pathologies, each as a good/bad pair</h1>
+ *
+ * {@link JITDemo#compute} is the easy case: a 4-byte static method the JIT inlines at its only call site.
+ * Hot paths in real code hit the cases below instead. Every scenario has a {@code good} and a {@code bad}
+ * variant computing the same result, so the difference is the cost of the pathology alone.
+ *
+ * <h2>Scenarios</h2>
+ * <ul>
+ *   <li><b>megamorphic*</b> – an interface call site that only ever sees one receiver type is inlined behind a
+ *       type check; once it sees more than two types C2 gives up and emits a virtual (itable) call.</li>
+ *   <li><b>profileChange*</b> – C2 compiles {@link #runBatch} speculating on the single type seen while warming
+ *       up. The bad variant then hands it a new type: the speculation hits an uncommon trap, the compiled code
+ *       is made not entrant, and the method runs interpreted until it is recompiled. Measured as one cold
+ *       batch per fork ({@link Mode#SingleShotTime}) because the cost is a one-off.</li>
+ *   <li><b>osr*</b> – a method invoked once with one huge loop only ever runs as interpreter + OSR code; the
+ *       same work split into a small method that is called repeatedly gets a normal compile. Single shot.</li>
+ *   <li><b>inlining*</b> – a method above {@code -XX:FreqInlineSize} (325 bytecodes) is called, not inlined;
+ *       the same arithmetic split into small methods is inlined completely.</li>
+ *   <li><b>vectorize*</b> – {@code a[i] = b[i] + c[i]} is turned into SIMD by C2's SuperWord pass; the same
+ *       addition through an index array ({@code a[idx[i]]}) cannot be vectorized.</li>
+ * </ul>
+ *
+ * <h2>Run</h2>
+ * <pre>{@code
+ * mvn -B package
+ * java -jar target/benchmarks.jar JITPathologyBenchmark
+ * java -jar target/benchmarks.jar "JITPathologyBenchmark.inlining" -jvmArgsAppend -XX:+UnlockDiagnosticVMOptions -jvmArgsAppend -XX:+PrintInlining
+ * }</pre>
+ * Use {@link JitEventRecorder} or {@code -prof perfasm} to confirm what the JIT actually did for a variant.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class JITPathologyBenchmark {
+
+    static final int SIZE = 1024;
+
+    // ---- megamorphic call sites ----------------------------------------------------------------------------
+
+    interface Shape {
+        int area();
+    }
+
+    static final class Square implements Shape {
+        final int side;
+
+        Square(int side) {
+            this.side = side;
+        }
+
+        public int area() {
+            return side * side;
+        }
+    }
+
+    static final class Rect implements Shape {
+        final int w, h;
+
+        Rect(int w, int h) {
+            this.w = w;
+            this.h = h;
+        }
+
+        public int area() {
+            return w * h;
+        }
+    }
+
+    static final class Triangle implements Shape {
+        final int base, height;
+
+        Triangle(int base, int height) {
+            this.base = base;
+            this.height = height;
+        }
+
+        public int area() {
+            return base * height / 2;
+        }
+    }
+
+    static final class Circle implements Shape {
+        final int r;
+
+        Circle(int r) {
+            this.r = r;
+        }
+
+        public int area() {
+            return 3 * r * r;
+        }
+    }
+
+    private Shape[] monomorphic;
+    private Shape[] megamorphic;
+
+    // ---- vectorization ------------------------------------------------------------------------------------
+
+    private int[] a, b, c, identity;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        monomorphic = new Shape[SIZE];
+        megamorphic = new Shape[SIZE];
+        a = new int[SIZE];
+        b = new int[SIZE];
+        c = new int[SIZE];
+        identity = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            monomorphic[i] = new Square(i % 17);
+            megamorphic[i] = switch (i % 4) {
+                case 0 -> new Square(i % 17);
+                case 1 -> new Rect(i % 17, 3);
+                case 2 -> new Triangle(i % 17, 4);
+                default -> new Circle(i % 17);
+            };
+            b[i] = i;
+            c[i] = SIZE - i;
+            identity[i] = i;
+        }
+    }
+
+    @Benchmark
+    public int megamorphicGood() {
+        return sumAreas(monomorphic);
+    }
+
+    @Benchmark
+    public int megamorphicBad() {
+        return sumAreas(megamorphic);
+    }
+
+    private static int sumAreas(Shape[] shapes) {
+        int sum = 0;
+        for (Shape s : shapes) {
+            sum += s.area();
+        }
+        return sum;
+    }
+
+    // ---- uncommon trap after a type-profile change --------------------------------------------------------
+
+    /** Warms {@link #runBatch} with {@link Square}s only, so C2 compiles it with a Square-only speculation. */
+    @State(Scope.Thread)
+    public static class TrainedOnSquares {
+        final Shape square = new Square(7);
+        final Shape circle = new Circle(7);
+
+        @Setup(Level.Trial)
+        public void train() {
+            int sink = 0;
+            for (int i = 0; i < 20_000; i++) {
+                sink += runBatch(square, 100);
+            }
+            if (sink == 42) {
+                System.out.println(sink);
+            }
+        }
+    }
+
+    /** C2-compiled during training with {@link #dispatch} inlined behind a "receiver is a Square" guard. */
+    static int runBatch(Shape s, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += dispatch(s);
+        }
+        return sum;
+    }
+
+    static int dispatch(Shape s) {
+        return s.area() + 1;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(20)
+    public int profileChangeGood(TrainedOnSquares state) {
+        return runBatch(state.square, 1_000_000);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(20)
+    public int profileChangeBad(TrainedOnSquares state) {
+        return runBatch(state.circle, 1_000_000);
+    }
+
+    // ---- OSR-only hot loop --------------------------------------------------------------------------------
+
+    static final int OSR_WORK = 50_000_000;
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public long osrGood() {
+        long sum = 0;
+        for (int chunk = 0; chunk < OSR_WORK; chunk += 1_000) {
+            sum += mixRange(chunk, chunk + 1_000);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public long osrBad() {
+        long sum = 0;
+        for (int i = 0; i < OSR_WORK; i++) {
+            sum += (i ^ (i >>> 3)) * 31L;
+        }
+        return sum;
+    }
+
+    private static long mixRange(int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += (i ^ (i >>> 3)) * 31L;
+        }
+        return sum;
+    }
+
+    // ---- too big to inline --------------------------------------------------------------------------------
+
+    @Benchmark
+    public int inliningGood() {
+        int sum = 0;
+        for (int i = 0; i < SIZE; i++) {
+            sum += mixSmall(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int inliningBad() {
+        int sum = 0;
+        for (int i = 0; i < SIZE; i++) {
+            sum += mixBig(i);
+        }
+        return sum;
+    }
+
+    private static int mixSmall(int x) {
+        return mixPart5(mixPart4(mixPart3(mixPart2(mixPart1(x)))));
+    }
+
+    private static int mixPart1(int x) {
+        x = x * 31 + 0x1b873593; x ^= x >>> 15;
+        x = x * 17 + 0x2b3f1a55; x ^= x >>> 13;
+        x = x * 13 + 0x3c6ef372; x ^= x >>> 11;
+        x = x * 11 + 0x4a7c15f9; x ^= x >>> 9;
+        x = x * 7 + 0x5bd1e995; x ^= x >>> 7;
+        return x;
+    }
+
+    private static int mixPart2(int x) {
+        x = x * 31 + 0x6a09e667; x ^= x >>> 15;
+        x = x * 17 + 0x7f4a7c15; x ^= x >>> 13;
+        x = x * 13 + 0x85ebca6b; x ^= x >>> 11;
+        x = x * 11 + 0x9e3779b9; x ^= x >>> 9;
+        x = x * 7 + 0xa54ff53a; x ^= x >>> 7;
+        return x;
+    }
+
+    private static int mixPart3(int x) {
+        x = x * 31 + 0xb5297a4d; x ^= x >>> 15;
+        x = x * 17 + 0xc2b2ae35; x ^= x >>> 13;
+        x = x * 13 + 0xcc9e2d51; x ^= x >>> 11;
+        x = x * 11 + 0xd6e8feb8; x ^= x >>> 9;
+        x = x * 7 + 0xe6546b64; x ^= x >>> 7;
+        return x;
+    }
+
+    private static int mixPart4(int x) {
+        x = x * 31 + 0xf1bbcdcb; x ^= x >>> 15;
+        x = x * 17 + 0x510e527f; x ^= x >>> 13;
+        x = x * 13 + 0x9b05688c; x ^= x >>> 11;
+        x = x * 11 + 0x1f83d9ab; x ^= x >>> 9;
+        x = x * 7 + 0x5be0cd19; x ^= x >>> 7;
+        return x;
+    }
+
+    private static int mixPart5(int x) {
+        x = x * 31 + 0x428a2f98; x ^= x >>> 15;
+        x = x * 17 + 0x71374491; x ^= x >>> 13;
+        x = x * 13 + 0xb5c0fbcf; x ^= x >>> 11;
+        x = x * 11 + 0xe9b5dba5; x ^= x >>> 9;
+        x = x * 7 + 0x3956c25b; x ^= x >>> 7;
+        return x;
+    }
+
+    /** The five {@code mixPart} methods written out as one: about 375 bytecodes, over FreqInlineSize. */
+    private static int mixBig(int x) {
+        x = x * 31 + 0x1b873593; x ^= x >>> 15;
+        x = x * 17 + 0x2b3f1a55; x ^= x >>> 13;
+        x = x * 13 + 0x3c6ef372; x ^= x >>> 11;
+        x = x * 11 + 0x4a7c15f9; x ^= x >>> 9;
+        x = x * 7 + 0x5bd1e995; x ^= x >>> 7;
+        x = x * 31 + 0x6a09e667; x ^= x >>> 15;
+        x = x * 17 + 0x7f4a7c15; x ^= x >>> 13;
+        x = x * 13 + 0x85ebca6b; x ^= x >>> 11;
+        x = x * 11 + 0x9e3779b9; x ^= x >>> 9;
+        x = x * 7 + 0xa54ff53a; x ^= x >>> 7;
+        x = x * 31 + 0xb5297a4d; x ^= x >>> 15;
+        x = x * 17 + 0xc2b2ae35; x ^= x >>> 13;
+        x = x * 13 + 0xcc9e2d51; x ^= x >>> 11;
+        x = x * 11 + 0xd6e8feb8; x ^= x >>> 9;
+        x = x * 7 + 0xe6546b64; x ^= x >>> 7;
+        x = x * 31 + 0xf1bbcdcb; x ^= x >>> 15;
+        x = x * 17 + 0x510e527f; x ^= x >>> 13;
+        x = x * 13 + 0x9b05688c; x ^= x >>> 11;
+        x = x * 11 + 0x1f83d9ab; x ^= x >>> 9;
+        x = x * 7 + 0x5be0cd19; x ^= x >>> 7;
+        x = x * 31 + 0x428a2f98; x ^= x >>> 15;
+        x = x * 17 + 0x71374491; x ^= x >>> 13;
+        x = x * 13 + 0xb5c0fbcf; x ^= x >>> 11;
+        x = x * 11 + 0xe9b5dba5; x ^= x >>> 9;
+        x = x * 7 + 0x3956c25b; x ^= x >>> 7;
+        return x;
+    }
+
+    // ---- auto-vectorization -------------------------------------------------------------------------------
+
+    @Benchmark
+    public int[] vectorizeGood() {
+        for (int i = 0; i < SIZE; i++) {
+            a[i] = b[i] + c[i];
+        }
+        return a;
+    }
+
+    @Benchmark
+    public int[] vectorizeBad() {
+        for (int i = 0; i < SIZE; i++) {
+            int j = identity[i];
+            a[j] = b[j] + c[j];
+        }
+        return a;
+    }
+}
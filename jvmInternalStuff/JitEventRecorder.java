@@ -0,0 +1,186 @@
+package jvmInternalStuff;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedObject;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Structured version of the hand-annotated {@code -XX:+PrintCompilation -XX:+PrintInlining} log in {@link JITDemo}.
+ * <p>
+ * A {@link RecordingStream} (JFR event streaming) is opened in-process, the target {@code main} is invoked,
+ * and the JIT events it triggers are collected as objects instead of scraped from stdout:
+ * <ul>
+ *   <li><b>jdk.Compilation</b> – tier (compile level), compiler, OSR flag ({@code %} in PrintCompilation),
+ *       code size, inlined bytes, compile time.</li>
+ *   <li><b>jdk.Deoptimization</b> – reason and action at a bci; an action of {@code make_not_entrant} is what
+ *       PrintCompilation shows as {@code made not entrant}.</li>
+ *   <li><b>jdk.CompilerInlining</b> – every inlining decision with the compiler's message
+ *       ({@code inline (hot)}, {@code too big}, {@code not inlineable}...).</li>
+ *   <li><b>jdk.CodeCacheStatistics</b> / <b>jdk.CodeCacheFull</b> – code heap occupancy per segment.</li>
+ * </ul>
+ * At the end a per-method timeline is printed (only methods whose class starts with {@code --filter},
+ * default: the target's package) followed by a deoptimization summary, so a method that keeps getting
+ * compiled and thrown away stands out without reading thousands of log lines.
+ * <p>
+ * <b>Run command:</b>
+ * <pre>{@code
+ * javac jvmInternalStuff/*.java
+ * java jvmInternalStuff.JitEventRecorder jvmInternalStuff.JITDemo
+ * java jvmInternalStuff.JitEventRecorder --filter=com.example. com.example.Main arg1 arg2
+ * }</pre>
+ */
+public class JitEventRecorder {
+
+    /** A method deoptimized at least this many times is reported as a deoptimization storm. */
+    static final int STORM_THRESHOLD = 5;
+
+    record Entry(Instant time, String text) {
+    }
+
+    private final String filter;
+    private final Map<String, List<Entry>> timeline = new LinkedHashMap<>();
+    private final Map<String, Integer> deoptCounts = new HashMap<>();
+    private final List<String> codeCache = new ArrayList<>();
+    private Instant startTime;
+
+    JitEventRecorder(String filter) {
+        this.filter = filter;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String filter = null;
+        int first = 0;
+        if (args.length > 0 && args[0].startsWith("--filter=")) {
+            filter = args[0].substring("--filter=".length());
+            first = 1;
+        }
+        String target = args.length > first ? args[first] : JITDemo.class.getName();
+        String[] targetArgs = Arrays.copyOfRange(args, Math.min(args.length, first + 1), args.length);
+        if (filter == null) {
+            filter = target.substring(0, target.lastIndexOf('.') + 1);
+        }
+
+        JitEventRecorder recorder = new JitEventRecorder(filter);
+        Method main = Class.forName(target).getMethod("main", String[].class);
+
+        try (RecordingStream rs = new RecordingStream()) {
+            rs.enable("jdk.Compilation").withThreshold(Duration.ZERO);
+            rs.enable("jdk.Deoptimization");
+            rs.enable("jdk.CompilerInlining");
+            rs.enable("jdk.CodeCacheFull");
+            rs.enable("jdk.CodeCacheStatistics").withPeriod(Duration.ofMillis(250));
+            rs.onEvent("jdk.Compilation", recorder::onCompilation);
+            rs.onEvent("jdk.Deoptimization", recorder::onDeoptimization);
+            rs.onEvent("jdk.CompilerInlining", recorder::onInlining);
+            rs.onEvent("jdk.CodeCacheFull", e -> recorder.onCodeCache(e, true));
+            rs.onEvent("jdk.CodeCacheStatistics", e -> recorder.onCodeCache(e, false));
+            recorder.startTime = Instant.now();
+            rs.startAsync();
+
+            main.invoke(null, (Object) targetArgs);
+            // stop() flushes and dispatches everything recorded so far before returning.
+            rs.stop();
+        }
+        recorder.print();
+    }
+
+    private synchronized void onCompilation(RecordedEvent e) {
+        RecordedMethod method = e.getValue("method");
+        if (!matches(method)) {
+            return;
+        }
+        String text = String.format("compile  id=%-5d %s tier %d%s  %d bytes code, %d inlined, %.2f ms%s",
+                e.getLong("compileId"), e.getString("compiler"), e.getShort("compileLevel"),
+                e.getBoolean("isOsr") ? " OSR" : "", e.getLong("codeSize"), e.getLong("inlinedBytes"),
+                e.getDuration().toNanos() / 1e6, field(e, "succeded", true) ? "" : "  FAILED");
+        add(method, e.getStartTime(), text);
+    }
+
+    private synchronized void onDeoptimization(RecordedEvent e) {
+        RecordedMethod method = e.getValue("method");
+        if (!matches(method)) {
+            return;
+        }
+        String key = key(method);
+        deoptCounts.merge(key, 1, Integer::sum);
+        String text = String.format("deopt    id=%-5d %s reason=%s action=%s @ bci %d (line %d) %s",
+                e.getLong("compileId"), e.getString("compiler"), e.getString("reason"), e.getString("action"),
+                e.getInt("bci"), e.getInt("lineNumber"), e.getString("instruction"));
+        add(method, e.getStartTime(), text);
+    }
+
+    private synchronized void onInlining(RecordedEvent e) {
+        RecordedMethod caller = e.getValue("caller");
+        if (!matches(caller)) {
+            return;
+        }
+        RecordedObject callee = e.getValue("callee");
+        String calleeName = callee == null ? "?" : callee.getString("type").replace('/', '.') + "::" + callee.getString("name");
+        String text = String.format("inline   id=%-5d @ %d %s %s (%s)",
+                e.getLong("compileId"), e.getInt("bci"), calleeName,
+                e.getBoolean("succeeded") ? "inlined" : "NOT inlined", e.getString("message"));
+        add(caller, e.getStartTime(), text);
+    }
+
+    private synchronized void onCodeCache(RecordedEvent e, boolean full) {
+        String segment = e.getString("codeBlobType");
+        long unallocated = e.getLong("unallocatedCapacity");
+        String text = String.format("%8.3fs %-28s %s methods=%d unallocated=%d KB",
+                secondsSinceStart(e.getStartTime()), segment, full ? "FULL" : "    ",
+                e.getInt("methodCount"), unallocated / 1024);
+        codeCache.add(text);
+    }
+
+    private boolean matches(RecordedMethod method) {
+        return method != null && method.getType().getName().startsWith(filter);
+    }
+
+    private static String key(RecordedMethod method) {
+        return method.getType().getName() + "::" + method.getName() + method.getDescriptor();
+    }
+
+    private void add(RecordedMethod method, Instant time, String text) {
+        timeline.computeIfAbsent(key(method), k -> new ArrayList<>()).add(new Entry(time, text));
+    }
+
+    private static boolean field(RecordedEvent e, String name, boolean fallback) {
+        return e.hasField(name) ? e.getBoolean(name) : fallback;
+    }
+
+    private double secondsSinceStart(Instant time) {
+        return Duration.between(startTime, time).toNanos() / 1e9;
+    }
+
+    private void print() {
+        System.out.println();
+        System.out.println("==== JIT timeline (classes starting with '" + filter + "') ====");
+        timeline.entrySet().stream()
+                .sorted(Comparator.comparing(en -> en.getValue().stream().map(Entry::time).min(Comparator.naturalOrder()).orElseThrow()))
+                .forEach(en -> {
+                    System.out.println(en.getKey());
+                    en.getValue().stream()
+                            .sorted(Comparator.comparing(Entry::time))
+                            .forEach(entry -> System.out.printf("  %8.3fs  %s%n", secondsSinceStart(entry.time), entry.text));
+                });
+
+        System.out.println();
+        System.out.println("==== Deoptimizations per method ====");
+        if (deoptCounts.isEmpty()) {
+            System.out.println("  none");
+        }
+        deoptCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(en -> System.out.printf("  %4d  %s%s%n", en.getValue(), en.getKey(),
+                        en.getValue() >= STORM_THRESHOLD ? "   <-- deoptimization storm" : ""));
+
+        System.out.println();
+        System.out.println("==== Code cache ====");
+        codeCache.forEach(line -> System.out.println("  " + line));
+    }
+}
@@ -0,0 +1,205 @@
+package jvmInternalStuff;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static metrics.LatencyHistogram.percentile;
+
+/**
+ * <h1>Startup time of a main class under different JIT / class-data configurations</h1>
+ *
+ * {@link InterpretExample} is small enough that it finishes while the JVM is still interpreting, which
+ * makes it a good stand-in for the startup phase autoscaled pods pay on every scale-out. This harness
+ * launches the target in child JVMs (same {@code java} binary and class path as the harness) and
+ * measures, per run:
+ * <ul>
+ *   <li><b>first output</b> – from {@code ProcessBuilder.start()} to the first byte on the child's stdout;</li>
+ *   <li><b>total</b> – from start to process exit.</li>
+ * </ul>
+ *
+ * <h2>Configurations</h2>
+ * <ul>
+ *   <li><b>tiered</b> – JVM defaults (C1 + C2, default CDS archive of JDK classes).</li>
+ *   <li><b>xint</b> – {@code -Xint}: interpreter only.</li>
+ *   <li><b>c1-only</b> – {@code -XX:TieredStopAtLevel=1}: quick C1 code, never C2.</li>
+ *   <li><b>appcds</b> – a dynamic AppCDS archive of the application classes, written by one training run with
+ *       {@code -XX:ArchiveClassesAtExit} and then mapped with {@code -XX:SharedArchiveFile}.</li>
+ *   <li><b>aot-cache</b> – JDK 24+ (JEP 483) ahead-of-time cache: a training run with
+ *       {@code -XX:AOTMode=record}, {@code -XX:AOTMode=create} to build it, then {@code -XX:AOTCache}.
+ *       Skipped on older JDKs.</li>
+ * </ul>
+ * CDS refuses non-empty directories on the class path, so directory entries of the harness's class path are
+ * packed into a temporary jar first and every configuration (not only the archived ones) runs from that jar.
+ * Every configuration gets one unmeasured run first so file-system caches are warm for all of them.
+ *
+ * <h2>Run</h2>
+ * <pre>{@code
+ * javac jvmInternalStuff/*.java
+ * java jvmInternalStuff.StartupBenchmark                                  # InterpretExample, 20 runs
+ * java jvmInternalStuff.StartupBenchmark 50 com.example.Main arg1 arg2    # any main class on the class path
+ * }</pre>
+ */
+public class StartupBenchmark {
+
+    record Config(String name, List<String> jvmArgs) {
+    }
+
+    record Run(long firstOutputNanos, long totalNanos) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        String mainClass = args.length > 1 ? args[1] : InterpretExample.class.getName();
+        List<String> mainArgs = args.length > 2 ? Arrays.asList(args).subList(2, args.length) : List.of();
+
+        Path work = Files.createTempDirectory("startup");
+        try {
+            run(runs, mainClass, mainArgs, work);
+        } finally {
+            try (Stream<Path> files = Files.list(work)) {
+                for (Path p : files.toList()) {
+                    Files.deleteIfExists(p);
+                }
+            }
+            Files.deleteIfExists(work);
+        }
+    }
+
+    private static void run(int runs, String mainClass, List<String> mainArgs, Path work) throws IOException, InterruptedException {
+        String classPath = jarDirectories(System.getProperty("java.class.path"), work.resolve("classes.jar"));
+        List<Config> configs = new ArrayList<>();
+        configs.add(new Config("tiered", List.of()));
+        configs.add(new Config("xint", List.of("-Xint")));
+        configs.add(new Config("c1-only", List.of("-XX:TieredStopAtLevel=1")));
+
+        Path jsa = work.resolve("app.jsa");
+        launch(List.of("-XX:ArchiveClassesAtExit=" + jsa), classPath, mainClass, mainArgs);
+        if (Files.exists(jsa)) {
+            configs.add(new Config("appcds", List.of("-XX:SharedArchiveFile=" + jsa)));
+        } else {
+            System.out.println("appcds: archive was not created, skipping");
+        }
+
+        if (Runtime.version().feature() >= 24) {
+            Path conf = work.resolve("app.aotconf");
+            Path aot = work.resolve("app.aot");
+            launch(List.of("-XX:AOTMode=record", "-XX:AOTConfiguration=" + conf), classPath, mainClass, mainArgs);
+            launch(List.of("-XX:AOTMode=create", "-XX:AOTConfiguration=" + conf, "-XX:AOTCache=" + aot), classPath, mainClass, mainArgs);
+            if (Files.exists(aot)) {
+                configs.add(new Config("aot-cache", List.of("-XX:AOTCache=" + aot)));
+            } else {
+                System.out.println("aot-cache: cache was not created, skipping");
+            }
+        } else {
+            System.out.println("aot-cache: needs JDK 24+ (running " + Runtime.version() + "), skipping");
+        }
+
+        System.out.printf("%n%s x %d runs%n", mainClass, runs);
+        System.out.printf("%-10s %28s %28s%n", "", "first output (ms)", "total (ms)");
+        System.out.printf("%-10s %9s %9s %9s %9s %9s %9s%n", "config", "min", "median", "p90", "min", "median", "p90");
+        for (Config config : configs) {
+            launch(config.jvmArgs, classPath, mainClass, mainArgs);
+            long[] first = new long[runs];
+            long[] total = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                Run run = launch(config.jvmArgs, classPath, mainClass, mainArgs);
+                first[i] = run.firstOutputNanos;
+                total[i] = run.totalNanos;
+            }
+            Arrays.sort(first);
+            Arrays.sort(total);
+            System.out.printf("%-10s %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", config.name,
+                    first[0] / 1e6, percentile(first, 0.5) / 1e6, percentile(first, 0.9) / 1e6,
+                    total[0] / 1e6, percentile(total, 0.5) / 1e6, percentile(total, 0.9) / 1e6);
+        }
+    }
+
+    /** Starts {@code mainClass} in a child JVM, drains its output and times first byte and exit. */
+    static Run launch(List<String> jvmArgs, String classPath, String mainClass, List<String> mainArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(classPath);
+        command.add(mainClass);
+        command.addAll(mainArgs);
+
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        long firstOutput = -1;
+        byte[] buffer = new byte[8192];
+        try (InputStream out = process.getInputStream()) {
+            int n;
+            while ((n = out.read(buffer)) != -1) {
+                if (firstOutput < 0 && n > 0) {
+                    firstOutput = System.nanoTime() - start;
+                }
+            }
+        }
+        int exit = process.waitFor();
+        long total = System.nanoTime() - start;
+        if (exit != 0) {
+            throw new IllegalStateException("child JVM exited with " + exit + ": " + String.join(" ", command));
+        }
+        return new Run(firstOutput < 0 ? total : firstOutput, total);
+    }
+
+    /**
+     * Returns {@code classPath} with all directory entries replaced by a single jar holding their compiled classes
+     * (and {@code META-INF} resources). Hidden directories such as {@code .git} and nested {@code target} build
+     * output are skipped, so running from the source tree does not pack the whole checkout. An entry already taken
+     * from an earlier directory wins, as it would on the class path.
+     */
+    static String jarDirectories(String classPath, Path jar) throws IOException {
+        List<String> entries = new ArrayList<>();
+        List<Path> directories = new ArrayList<>();
+        for (String entry : classPath.split(File.pathSeparator)) {
+            if (Files.isDirectory(Path.of(entry))) {
+                directories.add(Path.of(entry));
+            } else if (!entry.isEmpty()) {
+                entries.add(entry);
+            }
+        }
+        if (directories.isEmpty()) {
+            return classPath;
+        }
+        Set<String> written = new HashSet<>();
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Path dir : directories) {
+                try (Stream<Path> files = Files.walk(dir)) {
+                    for (Path file : files.filter(Files::isRegularFile).toList()) {
+                        String name = dir.relativize(file).toString().replace('\\', '/');
+                        if (isClassOutput(name) && written.add(name)) {
+                            out.putNextEntry(new JarEntry(name));
+                            Files.copy(file, out);
+                            out.closeEntry();
+                        }
+                    }
+                }
+            }
+        }
+        entries.add(0, jar.toString());
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static boolean isClassOutput(String name) {
+        for (String part : name.split("/")) {
+            if (part.startsWith(".") || part.equals("target")) {
+                return false;
+            }
+        }
+        return name.endsWith(".class") || name.startsWith("META-INF/");
+    }
+}
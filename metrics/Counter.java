@@ -0,0 +1,33 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named monotonic counter on a {@link LongAdder}: uncontended it is one CAS on a base field, under contention
+ * each thread is spread to its own padded cell, so hot paths on many threads do not fight over one cache line.
+ */
+public final class Counter {
+
+    private final String name;
+    private final LongAdder adder = new LongAdder();
+
+    public Counter(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void increment() {
+        adder.increment();
+    }
+
+    public void add(long delta) {
+        adder.add(delta);
+    }
+
+    public long sum() {
+        return adder.sum();
+    }
+}
@@ -0,0 +1,116 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent log-linear histogram in the style of HdrHistogram: values below 64 get their own bucket, above
+ * that every power of two is split into 32 linear sub-buckets, so any recorded value is reported within ~3%.
+ * The 1888 buckets cover every non-negative {@code long}, e.g. nanoseconds from 1 ns to centuries.
+ * <p>
+ * {@link #record(long)} is lock-free and allocation-free: one {@link AtomicLongArray} increment, one
+ * {@link LongAdder} add and a read (rarely a CAS) of the maximum. All the work – copying buckets and walking them
+ * for percentiles – is in {@link #snapshot()}, which is called by reporters, not on the hot path.
+ * <pre>{@code
+ * static final LatencyHistogram WRITE_NANOS = Metrics.histogram("io.write.nanos");
+ * long start = System.nanoTime();
+ * channel.write(buffer);
+ * WRITE_NANOS.record(System.nanoTime() - start);
+ * }</pre>
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS - 2) * 32 + 64; // index(Long.MAX_VALUE) == 1887
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Records one value; negative values (e.g. from a clock step) count as 0. */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(index(value));
+        total.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Exact nearest-rank percentile of an already sorted sample, for runs small enough to keep every value
+     * (per-file or per-run latencies) instead of recording them into a histogram.
+     */
+    public static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /** Bucket of {@code value}: exact below 64, then 32 sub-buckets per power of two. */
+    static int index(long value) {
+        if (value < 64) {
+            return (int) value;
+        }
+        int shift = 58 - Long.numberOfLeadingZeros(value);
+        return shift * 32 + (int) (value >>> shift);
+    }
+
+    /** Smallest value that lands in {@code index}. */
+    static long lowerBound(int index) {
+        if (index < 64) {
+            return index;
+        }
+        int shift = index / 32 - 1;
+        return (long) (index - shift * 32) << shift;
+    }
+
+    /**
+     * A consistent-enough copy for reporting. Buckets are read one by one while other threads keep recording, so
+     * a snapshot may miss or include a value recorded during the copy; counts never go backwards.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(name, copy, count, total.sum(), max.get());
+    }
+
+    public record Snapshot(String name, long[] counts, long count, long total, long max) {
+
+        /** Value at quantile {@code p} (0..1), as the lower bound of its bucket, capped at the exact maximum. */
+        public long percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(max, lowerBound(i));
+                }
+            }
+            return max;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide registry of {@link Counter}s and {@link LatencyHistogram}s, shared by the other packages:
+ * the JavaIoVsNio writers record per-write latency and bytes, the LearningStreams stage counters record
+ * elements per pipeline stage, and the GarbageCollectorStuff allocation loops record bytes allocated.
+ * <p>
+ * Hot paths look a metric up once into a {@code static final} field and then only touch the counter or
+ * histogram, which never lock or allocate. Everything else happens off the hot path:
+ * <ul>
+ *   <li><b>JFR</b> – periodic custom events {@code metrics.Counter} and {@code metrics.Histogram}
+ *       (every second by default) carry each metric into any running recording. They cost nothing while no
+ *       recording is active.
+ *       <pre>{@code java -XX:StartFlightRecording:filename=metrics.jfr ... ; jfr print --events metrics.* metrics.jfr}</pre></li>
+ *   <li><b>Text</b> – {@link #snapshot()} renders all metrics as a table; {@link #startReporter} prints it on a
+ *       daemon thread with per-second counter rates. {@code -Dmetrics.report=5} starts a 5 s reporter on
+ *       {@code System.out} as soon as the first metric is created, without touching the program.</li>
+ * </ul>
+ */
+public final class Metrics {
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+    private static ScheduledExecutorService reporter;
+
+    static {
+        FlightRecorder.addPeriodicEvent(CounterEvent.class, Metrics::emitCounters);
+        FlightRecorder.addPeriodicEvent(HistogramEvent.class, Metrics::emitHistograms);
+        String period = System.getProperty("metrics.report");
+        if (period != null) {
+            startReporter(Duration.ofMillis((long) (Double.parseDouble(period) * 1000)), System.out);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /** All metrics that have recorded something, sorted by name; histogram values are shown in microseconds when the name ends in ".nanos". */
+    public static String snapshot() {
+        return render(null, 0);
+    }
+
+    /** Prints {@link #snapshot()} with counter rates every {@code period}; later calls are ignored. */
+    public static synchronized void startReporter(Duration period, PrintStream out) {
+        if (reporter != null) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        Map<String, Long> previous = new HashMap<>();
+        long[] lastNanos = {System.nanoTime()};
+        reporter.scheduleAtFixedRate(() -> {
+            long now = System.nanoTime();
+            out.print(render(previous, (now - lastNanos[0]) / 1e9));
+            lastNanos[0] = now;
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static String render(Map<String, Long> previous, double seconds) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("---- metrics %tT ----%n", System.currentTimeMillis()));
+        COUNTERS.forEach((name, counter) -> {
+            long value = counter.sum();
+            if (value == 0) {
+                return;
+            }
+            sb.append(String.format("  %-40s %,18d", name, value));
+            if (previous != null) {
+                Long before = previous.put(name, value);
+                if (seconds > 0) {
+                    sb.append(String.format("  %,16.1f/s", (value - (before == null ? 0 : before)) / seconds));
+                }
+            }
+            sb.append(System.lineSeparator());
+        });
+        HISTOGRAMS.forEach((name, histogram) -> {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            if (s.count() == 0) {
+                return;
+            }
+            double scale = name.endsWith(".nanos") ? 1e3 : 1;
+            String unit = name.endsWith(".nanos") ? " us" : "";
+            sb.append(String.format("  %-40s count %,d  mean %.1f  p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%s%n",
+                    name, s.count(), s.mean() / scale, s.percentile(0.5) / scale, s.percentile(0.9) / scale,
+                    s.percentile(0.99) / scale, s.percentile(0.999) / scale, s.max() / scale, unit));
+        });
+        return sb.toString();
+    }
+
+    private static void emitCounters() {
+        COUNTERS.forEach((name, counter) -> {
+            CounterEvent event = new CounterEvent();
+            event.name = name;
+            event.value = counter.sum();
+            event.commit();
+        });
+    }
+
+    private static void emitHistograms() {
+        HISTOGRAMS.forEach((name, histogram) -> {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            HistogramEvent event = new HistogramEvent();
+            event.name = name;
+            event.count = s.count();
+            event.p50 = s.percentile(0.5);
+            event.p99 = s.percentile(0.99);
+            event.p999 = s.percentile(0.999);
+            event.max = s.max();
+            event.commit();
+        });
+    }
+
+    @Name("metrics.Counter")
+    @Label("Counter")
+    @Category({"Java Core Stuff", "Metrics"})
+    @Description("Current value of a Metrics counter")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class CounterEvent extends Event {
+        @Label("Name")
+        String name;
+        @Label("Value")
+        long value;
+    }
+
+    @Name("metrics.Histogram")
+    @Label("Histogram")
+    @Category({"Java Core Stuff", "Metrics"})
+    @Description("Cumulative percentiles of a Metrics histogram; Timespan fields assume nanosecond values")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class HistogramEvent extends Event {
+        @Label("Name")
+        String name;
+        @Label("Count")
+        long count;
+        @Label("p50")
+        @Timespan(Timespan.NANOSECONDS)
+        long p50;
+        @Label("p99")
+        @Timespan(Timespan.NANOSECONDS)
+        long p99;
+        @Label("p99.9")
+        @Timespan(Timespan.NANOSECONDS)
+        long p999;
+        @Label("Max")
+        @Timespan(Timespan.NANOSECONDS)
+        long max;
+    }
+}